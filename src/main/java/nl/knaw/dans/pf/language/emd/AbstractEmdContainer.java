@@ -15,14 +15,23 @@
  */
 package nl.knaw.dans.pf.language.emd;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import nl.knaw.dans.pf.language.emd.Term.Name;
 import nl.knaw.dans.pf.language.emd.exceptions.NoSuchTermException;
 import nl.knaw.dans.pf.language.emd.types.MetadataItem;
+import nl.knaw.dans.pf.language.emd.types.Modifiable;
+import nl.knaw.dans.pf.language.emd.types.Revisions;
 import nl.knaw.dans.pf.language.emd.util.StringUtil;
 
 /**
@@ -30,10 +39,13 @@ import nl.knaw.dans.pf.language.emd.util.StringUtil;
  * 
  * @author ecco
  */
-public abstract class AbstractEmdContainer implements EmdContainer {
+public abstract class AbstractEmdContainer implements EmdContainer, Modifiable {
 
     private static final long serialVersionUID = 8797904431054261189L;
 
+    // Term tables, one per container class, shared by all its instances.
+    private static final ConcurrentMap<Class<?>, TermTable> TERM_TABLES = new ConcurrentHashMap<Class<?>, TermTable>();
+
     private static String getMethodName(final Term term) {
         final StringBuilder builder = new StringBuilder("get");
         builder.append(StringUtil.firstCharToUpper(term.getNamespace().prefix));
@@ -53,28 +65,62 @@ public abstract class AbstractEmdContainer implements EmdContainer {
      */
     public String toString(final String separator, final boolean includeTerm) {
         final StringBuilder builder = new StringBuilder();
-        for (Term term : getTerms()) {
-            final List<?> list = getTermWithNamespace(term);
-            if (includeTerm && !list.isEmpty()) {
-                builder.append(EasyMetadata.DEFAULT_LINE_SEPERATOR);
-                builder.append(term.getName().termName);
-                builder.append(separator);
-                builder.append(term.getNamespace().uri);
-                builder.append(separator);
-            } else if (builder.length() > 0) {
-                builder.append(separator);
-            }
-            appendItems(separator, builder, list);
+        try {
+            appendTo(builder, separator, includeTerm);
+        }
+        catch (final IOException e) {
+            // a StringBuilder does not throw IOExceptions
+            throw new RuntimeException(e);
         }
         return builder.toString();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void appendTo(final Appendable out, final String separator, final boolean includeTerm) throws IOException {
+        appendTo(out, separator, includeTerm, false);
+    }
+
+    // Appends the representation of toString(separator, includeTerm) to out. If omitLineSeparator is true, the line
+    // separator before the first term is left out. Returns true if anything was appended.
+    boolean appendTo(final Appendable out, final String separator, final boolean includeTerm, final boolean omitLineSeparator) throws IOException {
+        boolean written = false;
+        final TermTable table = getTermTable();
+        for (int index = 0; index < table.terms.length; index++) {
+            final List<?> list = peekNonNull(index);
+            if (!list.isEmpty()) {
+                if (includeTerm) {
+                    final Term term = table.terms[index];
+                    if (written || !omitLineSeparator) {
+                        out.append(EasyMetadata.DEFAULT_LINE_SEPERATOR);
+                    }
+                    out.append(term.getName().termName);
+                    out.append(separator);
+                    out.append(term.getNamespace().uri);
+                    out.append(separator);
+                    written = true;
+                } else if (written) {
+                    out.append(separator);
+                }
+                written |= appendItems(out, separator, list);
+            }
+        }
+        return written;
+    }
+
     /**
      * {@inheritDoc}
      */
     public String toString(final String separator, final Term term) throws NoSuchTermException {
         final StringBuilder builder = new StringBuilder();
-        appendItems(separator, builder, get(term));
+        try {
+            appendItems(builder, separator, get(term));
+        }
+        catch (final IOException e) {
+            // a StringBuilder does not throw IOExceptions
+            throw new RuntimeException(e);
+        }
         return builder.toString();
     }
 
@@ -82,7 +128,7 @@ public abstract class AbstractEmdContainer implements EmdContainer {
      * {@inheritDoc}
      */
     public String toString(final String separator, final Name termName) throws NoSuchTermException {
-        return toString(separator, new Term(termName));
+        return toString(separator, Term.of(termName));
     }
 
     /**
@@ -93,13 +139,48 @@ public abstract class AbstractEmdContainer implements EmdContainer {
         return toString(EasyMetadata.DEFAULT_ITEM_SEPARATOR);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public boolean accept(final EmdItemVisitor visitor) {
+        boolean proceed = true;
+        final TermTable table = getTermTable();
+        for (int index = 0; proceed && index < table.terms.length; index++) {
+            final List<? extends MetadataItem> list = peekTermList(index);
+            if (list != null && !list.isEmpty()) {
+                final Term term = table.terms[index];
+                proceed = visitor.term(term, list);
+                for (int i = 0; proceed && i < list.size(); i++) {
+                    proceed = visitor.item(term, list.get(i));
+                }
+            }
+        }
+        return proceed;
+    }
+
+    /**
+     * Get the revision of this container, folded from the lists of its terms and the items in them. The revision is computed on each call, which takes a walk
+     * over the items but no serialization.
+     * 
+     * @return the current revision
+     */
+    public long getRevision() {
+        long revision = 0;
+        final TermTable table = getTermTable();
+        for (int index = 0; index < table.terms.length; index++) {
+            revision = Revisions.fold(revision, peekTermList(index));
+        }
+        return revision;
+    }
+
     /**
      * {@inheritDoc}
      */
     public List<String> getValues() {
         final List<String> values = new ArrayList<String>();
-        for (Term term : getTerms()) {
-            final List<?> data = getTermWithNamespace(term);
+        final TermTable table = getTermTable();
+        for (int index = 0; index < table.terms.length; index++) {
+            final List<?> data = peekNonNull(index);
             for (Object obj : data) {
                 values.add(obj.toString());
             }
@@ -123,27 +204,42 @@ public abstract class AbstractEmdContainer implements EmdContainer {
      */
     public List<MetadataItem> get(final Name termName) throws NoSuchTermException {
         final List<MetadataItem> list = new ArrayList<MetadataItem>();
-        for (Term.Namespace namespace : Term.Namespace.values()) {
-            try {
-                list.addAll(getTermWithNamespace(new Term(termName, namespace)));
-            }
-            // ecco: CHECKSTYLE: OFF
-            catch (final NoSuchTermException e) {
-                // Do nothing
-            }
-            // ecco: CHECKSTYLE: ON
+        for (int index : getTermTable().getIndices(termName)) {
+            list.addAll(peekNonNull(index));
         }
         return list;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public List<MetadataItem> getView(final Name termName) {
+        final int[] indices = getTermTable().getIndices(termName);
+        List<MetadataItem> view;
+        if (indices.length == 0) {
+            view = Collections.emptyList();
+        } else if (indices.length == 1) {
+            view = Collections.unmodifiableList((List<MetadataItem>) getTermList(indices[0]));
+        } else {
+            final List<List<? extends MetadataItem>> parts = new ArrayList<List<? extends MetadataItem>>(indices.length);
+            for (int index : indices) {
+                parts.add(getTermList(index));
+            }
+            view = new ConcatenatedList(parts);
+        }
+        return view;
+    }
+
     /**
      * {@inheritDoc}
      */
     public boolean isEmpty() {
         boolean empty = true;
-        for (Term term : getTerms()) {
-            final List<?> list = getTermWithNamespace(term);
-            if (!list.isEmpty()) {
+        final TermTable table = getTermTable();
+        for (int index = 0; index < table.terms.length; index++) {
+            final List<?> list = peekTermList(index);
+            if (list != null && !list.isEmpty()) {
                 empty = false;
                 break;
             }
@@ -154,37 +250,74 @@ public abstract class AbstractEmdContainer implements EmdContainer {
     @Override
     public int size() {
         int size = 0;
-        for (Term term : getTerms()) {
-            size += getTermWithNamespace(term).size();
+        final TermTable table = getTermTable();
+        for (int index = 0; index < table.terms.length; index++) {
+            final List<?> list = peekTermList(index);
+            if (list != null) {
+                size += list.size();
+            }
         }
         return size;
     }
 
-    private void appendItems(final String separator, final StringBuilder builder, final List<?> list) {
-        for (Object obj : list) {
-            builder.append(obj.toString());
-            builder.append(separator);
+    // Adds the number of items of each term to counts, at the ordinal of the term and at the ordinal of its name.
+    void addTermCounts(final int[] counts) {
+        final TermTable table = getTermTable();
+        for (int index = 0; index < table.terms.length; index++) {
+            final List<?> list = peekTermList(index);
+            if (list != null) {
+                final Term term = table.terms[index];
+                counts[term.ordinal()] += list.size();
+                counts[Term.of(term.getName()).ordinal()] += list.size();
+            }
         }
-        final int length = builder.length();
-        if (length > 0) {
-            builder.delete(length - separator.length(), length);
+    }
+
+    // Appends the items of list to out, separated by separator. Returns true if anything was appended.
+    private boolean appendItems(final Appendable out, final String separator, final List<?> list) throws IOException {
+        boolean written = false;
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) {
+                out.append(separator);
+                written |= separator.length() > 0;
+            }
+            final String item = list.get(i).toString();
+            out.append(item);
+            written |= item.length() > 0;
         }
+        return written;
     }
 
     @SuppressWarnings("unchecked")
     private List<MetadataItem> getTermWithNamespace(final Term term) throws NoSuchTermException {
-        List<MetadataItem> list = null;
-        Method method = null;
-        try {
-            method = this.getClass().getDeclaredMethod(getMethodName(term));
-        }
-        catch (final NoSuchMethodException e) {
-            final String msg = "Unknown term: " + term == null ? "null" : term.toString();
-            throw new NoSuchTermException(msg, e);
+        final TermTable table = getTermTable();
+        final int index = term.getName() == null ? -1 : table.indices[term.ordinal()];
+        if (index < 0) {
+            throw new NoSuchTermException("Unknown term: " + term);
         }
+        return (List<MetadataItem>) getTermList(index);
+    }
 
+    /**
+     * Get the list of the term at the given index in {@link #getTerms()}. Subclasses override this method with direct calls to their getters. The default
+     * implementation invokes the getter that follows the naming convention of the term (<code>get</code> + prefix + name) by reflection.
+     * 
+     * @param index
+     *        index of the term in {@link #getTerms()}
+     * @return the list of the term
+     * @throws NoSuchTermException
+     *         if this container has no getter for the term
+     */
+    @SuppressWarnings("unchecked")
+    protected List<? extends MetadataItem> getTermList(final int index) throws NoSuchTermException {
+        final TermTable table = getTermTable();
+        final Method method = table.getGetter(index);
+        if (method == null) {
+            throw new NoSuchTermException("No getter for term: " + table.terms[index]);
+        }
+        List<? extends MetadataItem> list = null;
         try {
-            list = (List<MetadataItem>) method.invoke(this);
+            list = (List<? extends MetadataItem>) method.invoke(this);
         }
         catch (final IllegalAccessException e) {
             throw new RuntimeException(e);
@@ -195,4 +328,140 @@ public abstract class AbstractEmdContainer implements EmdContainer {
         return list;
     }
 
+    /**
+     * Get the list of the term at the given index in {@link #getTerms()} as it is, without instantiating it. Subclasses with getters that lazily instantiate
+     * their lists override this method to read the backing fields. The default implementation returns {@link #getTermList(int)}.
+     * 
+     * @param index
+     *        index of the term in {@link #getTerms()}
+     * @return the list of the term, or <code>null</code> if it was not instantiated
+     * @throws NoSuchTermException
+     *         if this container has no getter for the term
+     */
+    protected List<? extends MetadataItem> peekTermList(final int index) throws NoSuchTermException {
+        return getTermList(index);
+    }
+
+    private List<? extends MetadataItem> peekNonNull(final int index) {
+        final List<? extends MetadataItem> list = peekTermList(index);
+        return list == null ? Collections.<MetadataItem> emptyList() : list;
+    }
+
+    // Get the term table of this container class. Builds it on first use.
+    private TermTable getTermTable() {
+        TermTable table = TERM_TABLES.get(getClass());
+        if (table == null) {
+            table = new TermTable(getClass(), getTerms());
+            final TermTable existing = TERM_TABLES.putIfAbsent(getClass(), table);
+            if (existing != null) {
+                table = existing;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * The terms of a container class, in the order of {@link EmdContainer#getTerms()}.
+     */
+    private static final class TermTable {
+
+        private final Class<?> containerClass;
+
+        private final Term[] terms;
+
+        // Index in terms by term ordinal, -1 for terms not in this container.
+        private final int[] indices;
+
+        // Indices in terms by term name ordinal, in the order of Term.Namespace.
+        private final int[][] nameIndices;
+
+        // Only resolved for containers that do not override getTermList.
+        private volatile Method[] getters;
+
+        private TermTable(final Class<?> containerClass, final List<Term> termList) {
+            this.containerClass = containerClass;
+            terms = termList.toArray(new Term[termList.size()]);
+            indices = new int[Term.ORDINAL_COUNT];
+            Arrays.fill(indices, -1);
+            for (int index = 0; index < terms.length; index++) {
+                indices[terms[index].ordinal()] = index;
+            }
+            nameIndices = new int[Name.values().length][];
+            for (Name name : Name.values()) {
+                final List<Integer> found = new ArrayList<Integer>();
+                for (Term.Namespace namespace : Term.Namespace.values()) {
+                    final int index = indices[Term.of(name, namespace).ordinal()];
+                    if (index >= 0) {
+                        found.add(index);
+                    }
+                }
+                nameIndices[name.ordinal()] = new int[found.size()];
+                for (int i = 0; i < found.size(); i++) {
+                    nameIndices[name.ordinal()][i] = found.get(i);
+                }
+            }
+        }
+
+        private int[] getIndices(final Name name) throws NoSuchTermException {
+            if (name == null) {
+                throw new NoSuchTermException("Unknown term: null");
+            }
+            return nameIndices[name.ordinal()];
+        }
+
+        private Method getGetter(final int index) {
+            Method[] methods = getters;
+            if (methods == null) {
+                methods = new Method[terms.length];
+                for (int i = 0; i < terms.length; i++) {
+                    try {
+                        methods[i] = containerClass.getDeclaredMethod(getMethodName(terms[i]));
+                    }
+                    // ecco: CHECKSTYLE: OFF
+                    catch (final NoSuchMethodException e) {
+                        // Asking for this term will throw a NoSuchTermException.
+                    }
+                    // ecco: CHECKSTYLE: ON
+                }
+                getters = methods;
+            }
+            return methods[index];
+        }
+    }
+
+    /**
+     * Unmodifiable view of consecutive lists.
+     */
+    private static final class ConcatenatedList extends AbstractList<MetadataItem> implements RandomAccess {
+
+        private final List<List<? extends MetadataItem>> parts;
+
+        private ConcatenatedList(final List<List<? extends MetadataItem>> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public MetadataItem get(final int index) {
+            int offset = index;
+            int part = 0;
+            while (offset >= 0 && part < parts.size() && offset >= parts.get(part).size()) {
+                offset -= parts.get(part).size();
+                part++;
+            }
+            if (offset < 0 || part == parts.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return parts.get(part).get(offset);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (List<? extends MetadataItem> part : parts) {
+                size += part.size();
+            }
+            return size;
+        }
+    }
+
 }
@@ -15,6 +15,7 @@
  */
 package nl.knaw.dans.pf.language.emd;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.URI;
 import java.util.List;
@@ -93,6 +94,35 @@ public interface EasyMetadata extends TimestampedObject, EmdBean, Serializable {
      */
     Object visitChildren(boolean includeEmpty, EmdVisitor visitor);
 
+    /**
+     * Visit the non-empty children ({@link EmdContainer}s) of this EasyMetadata, in the order of {@link MDContainer}. Containers that were never instantiated
+     * are skipped without being created. Same as {@link #visitChildren(boolean, EmdVisitor)} with <code>includeEmpty</code> set to <code>false</code>.
+     * 
+     * @param visitor
+     *        visitor to receive containers
+     * @return object from last visit, or <code>null</code> if no container was visited
+     */
+    Object forEachNonEmptyContainer(EmdVisitor visitor);
+
+    /**
+     * Visit the non-empty containers, terms and items of this EasyMetadata, in the order of {@link MDContainer} and the terms of each container. Containers
+     * and lists that were never instantiated are skipped without being created.
+     * 
+     * @param visitor
+     *        visitor to receive containers, terms and items
+     * @return <code>true</code> if the visit was completed, <code>false</code> if the visitor ended it
+     */
+    boolean accept(EmdItemVisitor visitor);
+
+    /**
+     * Count the items of each term. The returned array is indexed by {@link Term#ordinal()} and has length {@link Term#ORDINAL_COUNT}. The count at the ordinal
+     * of a term without name space (<code>Term.of(name)</code>) is the sum of the counts of all terms with that name. Counting does not instantiate containers
+     * or lists.
+     * 
+     * @return the number of items of each term, indexed by term ordinal
+     */
+    int[] termCounts();
+
     /**
      * Get a string-representation of this EasyMetadata. Terms are separated with a {@link #DEFAULT_LINE_SEPERATOR}. Term-items are separated with the given
      * <code>separator</code>. Each term is preceded by it's name and name space, also separated with the given <code>separator</code>.
@@ -113,6 +143,19 @@ public interface EasyMetadata extends TimestampedObject, EmdBean, Serializable {
      */
     String toString(String separator);
 
+    /**
+     * Append the string-representation of {@link #toString(String)} to the given appendable, without building it in memory first. Large exports can write
+     * directly to a file or socket this way.
+     * 
+     * @param out
+     *        the appendable to append to
+     * @param separator
+     *        term-item separator
+     * @throws IOException
+     *         if the appendable throws it
+     */
+    void appendTo(Appendable out, String separator) throws IOException;
+
     /**
      * Get a string-representation of the EmdContainer corresponding to the given MDContainer.
      * 
@@ -15,14 +15,19 @@
  */
 package nl.knaw.dans.pf.language.emd;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.net.URI;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.ServiceLoader;
 import java.util.Set;
 
 import nl.knaw.dans.common.jibx.bean.JiBXDublinCoreMetadata;
@@ -46,11 +51,17 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      */
     public static final String EMD_VERSION = "0.1";
 
-    // ecco: CHECKSTYLE: OFF
-    private static Map<Term, MDContainer> TERMS_MAP;
+    // MDContainer.values() clones its array on every call.
+    private static final MDContainer[] MD_CONTAINERS = MDContainer.values();
 
-    private static Map<Term, MDContainer> TERM_NAMES_MAP;
-    // ecco: CHECKSTYLE: ON
+    // Dublin Core properties are named after the containers that hold their values.
+    private static final Map<PropertyName, MDContainer> PROPERTY_CONTAINERS = new EnumMap<PropertyName, MDContainer>(PropertyName.class);
+
+    static {
+        for (PropertyName propertyName : PropertyName.values()) {
+            PROPERTY_CONTAINERS.put(propertyName, MDContainer.valueOf(propertyName.name()));
+        }
+    }
 
     /**
      *
@@ -59,6 +70,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
 
     private boolean versionable;
 
+    // True for the copy without containers that travels in an EasyMetadataSerialForm.
+    private transient boolean serialShell;
+
     private String version;
     private EmdTitle emdTitle;
     private EmdCreator emdCreator;
@@ -79,7 +93,7 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
     private EmdOther emdOther;
 
     /**
-     * JiBX constructor.
+     * JiBX constructor. Unlike {@link #EasyMetadataImpl(MetadataFormat)} it does not instantiate any containers.
      */
     protected EasyMetadataImpl() {
 
@@ -105,6 +119,16 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
         return version;
     }
 
+    /**
+     * Set the version, as read from an xml-stream.
+     * 
+     * @param version
+     *        the version
+     */
+    public void setVersion(final String version) {
+        this.version = version;
+    }
+
     public String getUnitFormat() {
         return UNIT_FORMAT;
     }
@@ -133,7 +157,7 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public Map<Term, MDContainer> getTermsMap() {
-        return Collections.unmodifiableMap(getTermMDContainerMap());
+        return TermRegistry.TERMS_MAP;
     }
 
     /**
@@ -143,55 +167,130 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
         return getTermsMap().keySet();
     }
 
-    // Returns the TERMS_MAP. Instantiates and populates it if necessary.
-    private static synchronized Map<Term, MDContainer> getTermMDContainerMap() {
-        if (TERMS_MAP == null) {
-            buidlMaps();
-        }
-        return TERMS_MAP;
-    }
+    // Holder for the term registry. Built once when first needed; immutable and read without locking thereafter.
+    private static final class TermRegistry {
 
-    // Returns the TERMS_NAMES_MAP. Instantiates and populates it if necessary.
-    // The keys in this map only contain the term.name. So keep it private.
-    private static synchronized Map<Term, MDContainer> getTermNameMDContainerMap() {
-        if (TERM_NAMES_MAP == null) {
-            buidlMaps();
-        }
-        return TERM_NAMES_MAP;
-    }
+        // Term (name and namespace) to container, in the order of MDContainer and the TERMS of each container.
+        private static final Map<Term, MDContainer> TERMS_MAP;
 
-    @SuppressWarnings("unchecked")
-    private static void buidlMaps() {
-        TERMS_MAP = Collections.synchronizedMap(new LinkedHashMap<Term, MDContainer>());
-        TERM_NAMES_MAP = Collections.synchronizedMap(new LinkedHashMap<Term, MDContainer>());
-        for (MDContainer mdContainer : MDContainer.values()) {
-            try {
-                final Field classField = EasyMetadataImpl.class.getDeclaredField("emd" + mdContainer.name());
-                final Class<? extends EmdContainer> containerType = (Class<? extends EmdContainer>) classField.getType();
-                final Field termsField = containerType.getDeclaredField("TERMS");
-                final Term[] terms = (Term[]) termsField.get(containerType.newInstance());
-                for (Term term : terms) {
-                    TERMS_MAP.put(term, mdContainer);
-                    final Term termN = new Term(term.getName());
-                    TERM_NAMES_MAP.put(termN, mdContainer);
+        // Container by term ordinal, for terms with and without namespace. If a name occurs in more than one
+        // container, the last one wins for the term without namespace.
+        private static final MDContainer[] CONTAINERS = new MDContainer[Term.ORDINAL_COUNT];
+
+        static {
+            final Map<Term, MDContainer> termsMap = new LinkedHashMap<Term, MDContainer>();
+            for (MDContainer mdContainer : MD_CONTAINERS) {
+                for (Term term : getContainerTerms(mdContainer)) {
+                    termsMap.put(term, mdContainer);
+                    CONTAINERS[term.ordinal()] = mdContainer;
+                    CONTAINERS[Term.of(term.getName()).ordinal()] = mdContainer;
                 }
             }
-            catch (final SecurityException e) {
-                throw new RuntimeException(e);
-            }
-            catch (final NoSuchFieldException e) {
-                throw new RuntimeException(e);
-            }
-            catch (final IllegalArgumentException e) {
-                throw new RuntimeException(e);
+            TERMS_MAP = Collections.unmodifiableMap(termsMap);
+        }
+
+        private TermRegistry() {
+            // holder
+        }
+
+        // Returns the container of the given term, by term.name/term.namespace or, if the term has no
+        // namespace, by term.name only. Returns null if no container holds the term.
+        static MDContainer lookup(final Term term) {
+            MDContainer mdContainer = null;
+            if (term != null && term.getName() != null) {
+                mdContainer = CONTAINERS[term.ordinal()];
             }
-            catch (final IllegalAccessException e) {
-                throw new RuntimeException(e);
+            return mdContainer;
+        }
+    }
+
+    // The TERMS of the given container type.
+    private static Term[] getContainerTerms(final MDContainer mdContainer) {
+        Term[] terms = null;
+        switch (mdContainer) {
+        case Title:
+            terms = EmdTitle.TERMS;
+            break;
+        case Creator:
+            terms = EmdCreator.TERMS;
+            break;
+        case Subject:
+            terms = EmdSubject.TERMS;
+            break;
+        case Description:
+            terms = EmdDescription.TERMS;
+            break;
+        case Publisher:
+            terms = EmdPublisher.TERMS;
+            break;
+        case Contributor:
+            terms = EmdContributor.TERMS;
+            break;
+        case Date:
+            terms = EmdDate.TERMS;
+            break;
+        case Type:
+            terms = EmdType.TERMS;
+            break;
+        case Format:
+            terms = EmdFormat.TERMS;
+            break;
+        case Identifier:
+            terms = EmdIdentifier.TERMS;
+            break;
+        case Relation:
+            terms = EmdRelation.TERMS;
+            break;
+        case Source:
+            terms = EmdSource.TERMS;
+            break;
+        case Language:
+            terms = EmdLanguage.TERMS;
+            break;
+        case Coverage:
+            terms = EmdCoverage.TERMS;
+            break;
+        case Rights:
+            terms = EmdRights.TERMS;
+            break;
+        case Audience:
+            terms = EmdAudience.TERMS;
+            break;
+        case Other:
+            terms = EmdOther.TERMS;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown container: " + mdContainer);
+        }
+        return terms;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean accept(final EmdItemVisitor visitor) {
+        boolean proceed = true;
+        for (int i = 0; proceed && i < MD_CONTAINERS.length; i++) {
+            final EmdContainer container = getContainerByField(MD_CONTAINERS[i]);
+            if (container != null && !container.isEmpty()) {
+                proceed = visitor.startContainer(MD_CONTAINERS[i], container) && container.accept(visitor);
             }
-            catch (final InstantiationException e) {
-                throw new RuntimeException(e);
+        }
+        return proceed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int[] termCounts() {
+        final int[] counts = new int[Term.ORDINAL_COUNT];
+        for (MDContainer mdContainer : MD_CONTAINERS) {
+            final AbstractEmdContainer container = (AbstractEmdContainer) getContainerByField(mdContainer);
+            if (container != null) {
+                container.addTermCounts(counts);
             }
         }
+        return counts;
     }
 
     /**
@@ -199,7 +298,7 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      */
     public boolean isEmpty() {
         boolean empty = true;
-        for (MDContainer mdContainer : MDContainer.values()) {
+        for (MDContainer mdContainer : MD_CONTAINERS) {
             final EmdContainer container = getContainerByField(mdContainer);
             if (container != null && !container.isEmpty()) {
                 empty = false;
@@ -215,16 +314,25 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
     public Object visitChildren(boolean includeEmpty, EmdVisitor visitor) {
         Object object = null;
         if (includeEmpty) {
-            for (MDContainer mdContainer : MDContainer.values()) {
+            for (MDContainer mdContainer : MD_CONTAINERS) {
                 final EmdContainer container = getContainerByMethod(mdContainer);
                 object = visitor.container(container);
             }
         } else {
-            for (MDContainer mdContainer : MDContainer.values()) {
-                final EmdContainer container = getContainerByField(mdContainer);
-                if (container != null && !container.isEmpty()) {
-                    object = visitor.container(container);
-                }
+            object = forEachNonEmptyContainer(visitor);
+        }
+        return object;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object forEachNonEmptyContainer(final EmdVisitor visitor) {
+        Object object = null;
+        for (MDContainer mdContainer : MD_CONTAINERS) {
+            final EmdContainer container = getContainerByField(mdContainer);
+            if (container != null && !container.isEmpty()) {
+                object = visitor.container(container);
             }
         }
         return object;
@@ -235,14 +343,27 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      */
     public String toString(final String separator) {
         final StringBuilder builder = new StringBuilder();
-        for (MDContainer mdContainer : MDContainer.values()) {
-            final EmdContainer container = getContainerByField(mdContainer);
+        try {
+            appendTo(builder, separator);
+        }
+        catch (final IOException e) {
+            // a StringBuilder does not throw IOExceptions
+            throw new RuntimeException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void appendTo(final Appendable out, final String separator) throws IOException {
+        boolean written = false;
+        for (MDContainer mdContainer : MD_CONTAINERS) {
+            final AbstractEmdContainer container = (AbstractEmdContainer) getContainerByField(mdContainer);
             if (container != null) {
-                builder.append(container.toString(separator, true));
+                written |= container.appendTo(out, separator, true, !written);
             }
         }
-        builder.delete(0, 1);
-        return builder.toString();
     }
 
     /**
@@ -263,7 +384,7 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public String toString(final String separator, final Term.Name termName) throws NoSuchTermException {
-        return getContainerByMethod(new Term(termName)).toString(separator, termName);
+        return getContainerByMethod(Term.of(termName)).toString(separator, termName);
     }
 
     /**
@@ -306,59 +427,173 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
         return jdc;
     }
 
-    // Get the container by field. May return null if container was not instantiated earlier.
+    // Get the container by field. May return null if container was not instantiated or loaded earlier.
     private EmdContainer getContainerByField(final MDContainer mdContainer) {
-        EmdContainer container = null;
-        try {
-            final Field classField = this.getClass().getDeclaredField("emd" + mdContainer.name());
-            container = (EmdContainer) classField.get(this);
-        }
-        catch (final SecurityException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final NoSuchFieldException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final IllegalArgumentException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final IllegalAccessException e) {
-            throw new RuntimeException(e);
+        EmdContainer container = peekContainer(mdContainer);
+        if (container == null) {
+            container = loadContainer(mdContainer);
+            if (container != null) {
+                setContainerField(mdContainer, container);
+            }
         }
         return container;
     }
 
-    // Get the container by field. May return null if container was not instantiated earlier.
-    private EmdContainer getContainerByField(final PropertyName propertyName) {
+    /**
+     * Get the container by field, without instantiating or loading it.
+     * 
+     * @param mdContainer
+     *        the container to get
+     * @return the container, or <code>null</code> if it was not instantiated or loaded yet
+     */
+    protected EmdContainer peekContainer(final MDContainer mdContainer) {
         EmdContainer container = null;
-        try {
-            final Field classField = this.getClass().getDeclaredField("emd" + propertyName.name());
-            container = (EmdContainer) classField.get(this);
-        }
-        catch (final SecurityException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final NoSuchFieldException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final IllegalArgumentException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final IllegalAccessException e) {
-            throw new RuntimeException(e);
+        switch (mdContainer) {
+        case Title:
+            container = emdTitle;
+            break;
+        case Creator:
+            container = emdCreator;
+            break;
+        case Subject:
+            container = emdSubject;
+            break;
+        case Description:
+            container = emdDescription;
+            break;
+        case Publisher:
+            container = emdPublisher;
+            break;
+        case Contributor:
+            container = emdContributor;
+            break;
+        case Date:
+            container = emdDate;
+            break;
+        case Type:
+            container = emdType;
+            break;
+        case Format:
+            container = emdFormat;
+            break;
+        case Identifier:
+            container = emdIdentifier;
+            break;
+        case Relation:
+            container = emdRelation;
+            break;
+        case Source:
+            container = emdSource;
+            break;
+        case Language:
+            container = emdLanguage;
+            break;
+        case Coverage:
+            container = emdCoverage;
+            break;
+        case Rights:
+            container = emdRights;
+            break;
+        case Audience:
+            container = emdAudience;
+            break;
+        case Other:
+            container = emdOther;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown container: " + mdContainer);
         }
         return container;
     }
 
+    // Set the field of a container that was loaded by loadContainer.
+    private void setContainerField(final MDContainer mdContainer, final EmdContainer container) {
+        switch (mdContainer) {
+        case Title:
+            emdTitle = (EmdTitle) container;
+            break;
+        case Creator:
+            emdCreator = (EmdCreator) container;
+            break;
+        case Subject:
+            emdSubject = (EmdSubject) container;
+            break;
+        case Description:
+            emdDescription = (EmdDescription) container;
+            break;
+        case Publisher:
+            emdPublisher = (EmdPublisher) container;
+            break;
+        case Contributor:
+            emdContributor = (EmdContributor) container;
+            break;
+        case Date:
+            emdDate = (EmdDate) container;
+            break;
+        case Type:
+            emdType = (EmdType) container;
+            break;
+        case Format:
+            emdFormat = (EmdFormat) container;
+            break;
+        case Identifier:
+            emdIdentifier = (EmdIdentifier) container;
+            break;
+        case Source:
+            emdSource = (EmdSource) container;
+            break;
+        case Language:
+            emdLanguage = (EmdLanguage) container;
+            break;
+        case Relation:
+            emdRelation = (EmdRelation) container;
+            break;
+        case Coverage:
+            emdCoverage = (EmdCoverage) container;
+            break;
+        case Rights:
+            emdRights = (EmdRights) container;
+            break;
+        case Audience:
+            emdAudience = (EmdAudience) container;
+            break;
+        case Other:
+            emdOther = (EmdOther) container;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown container: " + mdContainer);
+        }
+    }
+
+    /**
+     * Load a container that is not instantiated yet. This implementation returns <code>null</code>; subclasses that read containers lazily return the loaded
+     * container here. The method is only called while the field of the container is <code>null</code>.
+     * 
+     * @param mdContainer
+     *        the container to load
+     * @return the loaded container, or <code>null</code> if there is nothing to load
+     */
+    protected EmdContainer loadContainer(final MDContainer mdContainer) {
+        return null;
+    }
+
+    // Called by JiBX before marshalling (pre-get), as JiBX reads the container fields directly.
+    private void loadContainers() {
+        for (MDContainer mdContainer : MD_CONTAINERS) {
+            getContainerByField(mdContainer);
+        }
+    }
+
+    // Get the container by field. May return null if container was not instantiated earlier.
+    private EmdContainer getContainerByField(final PropertyName propertyName) {
+        return getContainerByField(PROPERTY_CONTAINERS.get(propertyName));
+    }
+
     // Get container containing given term.
     private EmdContainer getContainerByMethod(final Term term) throws NoSuchTermException {
-        MDContainer mdContainer = getTermMDContainerMap().get(term); // first look for
-                                                                     // term.name/term.namesoace
+        final MDContainer mdContainer = TermRegistry.lookup(term);
         if (mdContainer == null) {
-            mdContainer = getTermNameMDContainerMap().get(term); // then look for term.name
-            if (mdContainer == null) {
-                throw new NoSuchTermException("Requested term does not exist: " + (term == null ? "null" : term.toString()));
-            }
+            throw new NoSuchTermException("Requested term does not exist: " + (term == null ? "null" : term.toString()));
         }
         return getContainerByMethod(mdContainer);
     }
@@ -366,24 +601,60 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
     // Get the container by method. Never returns null.
     private EmdContainer getContainerByMethod(final MDContainer mdContainer) {
         EmdContainer container = null;
-        try {
-            final Method method = this.getClass().getDeclaredMethod("getEmd" + mdContainer.name());
-            container = (EmdContainer) method.invoke(this);
-        }
-        catch (final SecurityException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final NoSuchMethodException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final IllegalArgumentException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
-        catch (final InvocationTargetException e) {
-            throw new RuntimeException(e);
+        switch (mdContainer) {
+        case Title:
+            container = getEmdTitle();
+            break;
+        case Creator:
+            container = getEmdCreator();
+            break;
+        case Subject:
+            container = getEmdSubject();
+            break;
+        case Description:
+            container = getEmdDescription();
+            break;
+        case Publisher:
+            container = getEmdPublisher();
+            break;
+        case Contributor:
+            container = getEmdContributor();
+            break;
+        case Date:
+            container = getEmdDate();
+            break;
+        case Type:
+            container = getEmdType();
+            break;
+        case Format:
+            container = getEmdFormat();
+            break;
+        case Identifier:
+            container = getEmdIdentifier();
+            break;
+        case Relation:
+            container = getEmdRelation();
+            break;
+        case Source:
+            container = getEmdSource();
+            break;
+        case Language:
+            container = getEmdLanguage();
+            break;
+        case Coverage:
+            container = getEmdCoverage();
+            break;
+        case Rights:
+            container = getEmdRights();
+            break;
+        case Audience:
+            container = getEmdAudience();
+            break;
+        case Other:
+            container = getEmdOther();
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown container: " + mdContainer);
         }
         return container;
     }
@@ -392,6 +663,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdTitle getEmdTitle() {
+        if (emdTitle == null) {
+            emdTitle = (EmdTitle) loadContainer(MDContainer.Title);
+        }
         if (emdTitle == null) {
             emdTitle = new EmdTitle();
         }
@@ -402,6 +676,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdCreator getEmdCreator() {
+        if (emdCreator == null) {
+            emdCreator = (EmdCreator) loadContainer(MDContainer.Creator);
+        }
         if (emdCreator == null) {
             emdCreator = new EmdCreator();
         }
@@ -412,6 +689,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdSubject getEmdSubject() {
+        if (emdSubject == null) {
+            emdSubject = (EmdSubject) loadContainer(MDContainer.Subject);
+        }
         if (emdSubject == null) {
             emdSubject = new EmdSubject();
         }
@@ -422,6 +702,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdDescription getEmdDescription() {
+        if (emdDescription == null) {
+            emdDescription = (EmdDescription) loadContainer(MDContainer.Description);
+        }
         if (emdDescription == null) {
             emdDescription = new EmdDescription();
         }
@@ -432,6 +715,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdPublisher getEmdPublisher() {
+        if (emdPublisher == null) {
+            emdPublisher = (EmdPublisher) loadContainer(MDContainer.Publisher);
+        }
         if (emdPublisher == null) {
             emdPublisher = new EmdPublisher();
         }
@@ -442,6 +728,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdContributor getEmdContributor() {
+        if (emdContributor == null) {
+            emdContributor = (EmdContributor) loadContainer(MDContainer.Contributor);
+        }
         if (emdContributor == null) {
             emdContributor = new EmdContributor();
         }
@@ -452,6 +741,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdDate getEmdDate() {
+        if (emdDate == null) {
+            emdDate = (EmdDate) loadContainer(MDContainer.Date);
+        }
         if (emdDate == null) {
             emdDate = new EmdDate();
         }
@@ -462,6 +754,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdType getEmdType() {
+        if (emdType == null) {
+            emdType = (EmdType) loadContainer(MDContainer.Type);
+        }
         if (emdType == null) {
             emdType = new EmdType();
         }
@@ -472,6 +767,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdFormat getEmdFormat() {
+        if (emdFormat == null) {
+            emdFormat = (EmdFormat) loadContainer(MDContainer.Format);
+        }
         if (emdFormat == null) {
             emdFormat = new EmdFormat();
         }
@@ -482,6 +780,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdIdentifier getEmdIdentifier() {
+        if (emdIdentifier == null) {
+            emdIdentifier = (EmdIdentifier) loadContainer(MDContainer.Identifier);
+        }
         if (emdIdentifier == null) {
             emdIdentifier = new EmdIdentifier();
         }
@@ -492,6 +793,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdSource getEmdSource() {
+        if (emdSource == null) {
+            emdSource = (EmdSource) loadContainer(MDContainer.Source);
+        }
         if (emdSource == null) {
             emdSource = new EmdSource();
         }
@@ -502,6 +806,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdLanguage getEmdLanguage() {
+        if (emdLanguage == null) {
+            emdLanguage = (EmdLanguage) loadContainer(MDContainer.Language);
+        }
         if (emdLanguage == null) {
             emdLanguage = new EmdLanguage();
         }
@@ -512,6 +819,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdRelation getEmdRelation() {
+        if (emdRelation == null) {
+            emdRelation = (EmdRelation) loadContainer(MDContainer.Relation);
+        }
         if (emdRelation == null) {
             emdRelation = new EmdRelation();
         }
@@ -522,6 +832,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdCoverage getEmdCoverage() {
+        if (emdCoverage == null) {
+            emdCoverage = (EmdCoverage) loadContainer(MDContainer.Coverage);
+        }
         if (emdCoverage == null) {
             emdCoverage = new EmdCoverage();
         }
@@ -532,6 +845,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdRights getEmdRights() {
+        if (emdRights == null) {
+            emdRights = (EmdRights) loadContainer(MDContainer.Rights);
+        }
         if (emdRights == null) {
             emdRights = new EmdRights();
         }
@@ -542,6 +858,9 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
      * {@inheritDoc}
      */
     public EmdAudience getEmdAudience() {
+        if (emdAudience == null) {
+            emdAudience = (EmdAudience) loadContainer(MDContainer.Audience);
+        }
         if (emdAudience == null) {
             emdAudience = new EmdAudience();
         }
@@ -550,16 +869,83 @@ public class EasyMetadataImpl extends AbstractTimestampedObject implements EasyM
 
     @Override
     public boolean audienceIsArchaeology() {
-        return (emdAudience != null && emdAudience.size() == 1 && emdAudience.containsDiscipline("easy-discipline:2"));
+        // loads the container if needed, without instantiating it
+        final EmdAudience audience = (EmdAudience) getContainerByField(MDContainer.Audience);
+        return (audience != null && audience.size() == 1 && audience.containsDiscipline("easy-discipline:2"));
     }
 
     /**
      * {@inheritDoc}
      */
     public EmdOther getEmdOther() {
+        if (emdOther == null) {
+            emdOther = (EmdOther) loadContainer(MDContainer.Other);
+        }
         if (emdOther == null) {
             emdOther = new EmdOther();
         }
         return emdOther;
     }
+
+    // With an EmdSerialCodec the containers are written by the codec in an EasyMetadataSerialForm: only non-empty terms and no class descriptors of
+    // containers and items. Readers of earlier versions do not know that class and fail with a ClassNotFoundException, instead of reading a record without
+    // containers. Without a codec this object is written as is, with its containers as fields.
+    protected Object writeReplace() throws ObjectStreamException {
+        final EmdSerialCodec codec = SerialCodecHolder.CODEC;
+        Object replacement = this;
+        if (codec != null && !serialShell) {
+            replacement = new EasyMetadataSerialForm(newSerialShell(), codec.encode(this));
+        }
+        return replacement;
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        loadContainers();
+        out.defaultWriteObject();
+    }
+
+    // A copy of the state of this object, including that of the superclasses, without containers.
+    private EasyMetadataImpl newSerialShell() {
+        final EasyMetadataImpl shell = new EasyMetadataImpl();
+        shell.serialShell = true;
+        shell.versionable = versionable;
+        shell.version = version;
+        try {
+            for (Class<?> type = EasyMetadataImpl.class.getSuperclass(); type != null && type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) == 0) {
+                        field.setAccessible(true);
+                        field.set(shell, field.get(this));
+                    }
+                }
+            }
+        }
+        catch (final IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        return shell;
+    }
+
+    // Takes the containers of the given easymetadata, decoded from an EasyMetadataSerialForm.
+    void takeContainers(final EasyMetadataImpl decoded) {
+        for (MDContainer mdContainer : MD_CONTAINERS) {
+            setContainerField(mdContainer, decoded.peekContainer(mdContainer));
+        }
+    }
+
+    static EmdSerialCodec getSerialCodec() {
+        return SerialCodecHolder.CODEC;
+    }
+
+    // The codec is looked up when it is first needed, not when this class is initialized.
+    private static final class SerialCodecHolder {
+
+        static final EmdSerialCodec CODEC = findCodec();
+
+        private static EmdSerialCodec findCodec() {
+            final Iterator<EmdSerialCodec> codecs = ServiceLoader.load(EmdSerialCodec.class, EmdSerialCodec.class.getClassLoader()).iterator();
+            return codecs.hasNext() ? codecs.next() : null;
+        }
+
+    }
 }
@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * Serial form of {@link EasyMetadataImpl} when an {@link EmdSerialCodec} is available. The containers are encoded by the codec; the other state of the
+ * easymetadata travels in a copy without containers. Reading it resolves to that copy, with the decoded containers.
+ */
+final class EasyMetadataSerialForm implements Serializable {
+
+    private static final long serialVersionUID = 3172630470418519502L;
+
+    private final EasyMetadataImpl shell;
+
+    private final byte[] containers;
+
+    EasyMetadataSerialForm(final EasyMetadataImpl shell, final byte[] containers) {
+        this.shell = shell;
+        this.containers = containers;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        final EmdSerialCodec codec = EasyMetadataImpl.getSerialCodec();
+        if (codec == null) {
+            throw new InvalidObjectException("No " + EmdSerialCodec.class.getName() + " to decode the containers");
+        }
+        try {
+            shell.takeContainers((EasyMetadataImpl) codec.decode(containers));
+        }
+        catch (final IOException e) {
+            final InvalidObjectException invalid = new InvalidObjectException("Cannot decode the containers: " + e.getMessage());
+            invalid.initCause(e);
+            throw invalid;
+        }
+        return shell;
+    }
+
+}
@@ -21,6 +21,7 @@ import java.util.List;
 
 import nl.knaw.dans.pf.language.emd.types.BasicString;
 import nl.knaw.dans.pf.language.emd.types.EmdConstants;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 
 /**
  * Container for resource properties of category audience.
@@ -48,6 +49,19 @@ public class EmdAudience extends AbstractEmdContainer {
         return Arrays.asList(TERMS);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> getTermList(final int index) {
+        switch (index) {
+        case 0:
+            return getTermsAudience();
+        default:
+            return super.getTermList(index);
+        }
+    }
+
     /**
      * Get a list of resource properties known as 'audience' in the "http://purl.org/dc/terms/" name space.
      * 
@@ -15,6 +15,7 @@
  */
 package nl.knaw.dans.pf.language.emd;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 
@@ -60,6 +61,27 @@ public interface EmdContainer extends EmdBean, Serializable {
      */
     List<MetadataItem> get(Term.Name termName) throws NoSuchTermException;
 
+    /**
+     * Get an unmodifiable view of the items of the given term name, indiscriminate of name space. Unlike {@link #get(Term.Name)} the items are not copied: the
+     * view is backed by the lists of this container and reflects later changes to them. If the term name is not contained in this container, the view is
+     * empty.
+     * 
+     * @param termName
+     *        the term name to get the items of
+     * @return unmodifiable view of the items of the specified term name
+     */
+    List<MetadataItem> getView(Term.Name termName);
+
+    /**
+     * Visit the non-empty terms and their items of this container, in the order of {@link #getTerms()}. The visitor's
+     * {@link EmdItemVisitor#startContainer(MDContainer, EmdContainer)} is not called.
+     * 
+     * @param visitor
+     *        visitor to receive terms and items
+     * @return <code>true</code> if the visit was completed, <code>false</code> if the visitor ended it
+     */
+    boolean accept(EmdItemVisitor visitor);
+
     /**
      * Get the values of this EmdContainer as a list of strings.
      * 
@@ -115,6 +137,20 @@ public interface EmdContainer extends EmdBean, Serializable {
      */
     String toString(String separator, boolean includeTerm);
 
+    /**
+     * Append the string-representation of {@link #toString(String, boolean)} to the given appendable, without building it in memory first.
+     * 
+     * @param out
+     *        the appendable to append to
+     * @param separator
+     *        the separator to use
+     * @param includeTerm
+     *        <code>true</code> if name and name space of the term should be included, <code>false</code> otherwise
+     * @throws IOException
+     *         if the appendable throws it
+     */
+    void appendTo(Appendable out, String separator, boolean includeTerm) throws IOException;
+
     /**
      * Get a string-representation of the items of the given term, separated by separator.
      * 
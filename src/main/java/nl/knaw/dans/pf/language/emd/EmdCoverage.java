@@ -21,6 +21,7 @@ import java.util.List;
 
 import nl.knaw.dans.pf.language.emd.types.BasicString;
 import nl.knaw.dans.pf.language.emd.types.EmdScheme;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 import nl.knaw.dans.pf.language.emd.types.Spatial;
 
 /**
@@ -58,6 +59,25 @@ public class EmdCoverage extends AbstractEmdContainer {
         return Arrays.asList(TERMS);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> getTermList(final int index) {
+        switch (index) {
+        case 0:
+            return getDcCoverage();
+        case 1:
+            return getTermsSpatial();
+        case 2:
+            return getTermsTemporal();
+        case 3:
+            return getEasSpatial();
+        default:
+            return super.getTermList(index);
+        }
+    }
+
     /**
      * Get a list of resource properties known as 'coverage' in the "http://purl.org/dc/elements/1.1/" name space.
      * 
@@ -21,6 +21,7 @@ import java.util.List;
 
 import nl.knaw.dans.pf.language.emd.types.Author;
 import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 
 /**
  * Container for resource properties of category creator.
@@ -51,6 +52,21 @@ public class EmdCreator extends AbstractEmdContainer {
         return Arrays.asList(TERMS);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> getTermList(final int index) {
+        switch (index) {
+        case 0:
+            return getDcCreator();
+        case 1:
+            return getEasCreator();
+        default:
+            return super.getTermList(index);
+        }
+    }
+
     /**
      * Get a list of resource properties known as 'creator' in the "http://purl.org/dc/elements/1.1/" name space.
      * 
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import nl.knaw.dans.pf.language.emd.types.BasicDate;
 import nl.knaw.dans.pf.language.emd.types.IsoDate;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 
 import org.joda.time.DateTime;
 
@@ -172,6 +173,100 @@ public class EmdDate extends AbstractEmdContainer {
         return Arrays.asList(TERMS);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> getTermList(final int index) {
+        switch (index) {
+        case 0:
+            return getDcDate();
+        case 1:
+            return getTermsCreated();
+        case 2:
+            return getTermsValid();
+        case 3:
+            return getTermsAvailable();
+        case 4:
+            return getTermsIssued();
+        case 5:
+            return getTermsModified();
+        case 6:
+            return getTermsDateAccepted();
+        case 7:
+            return getTermsDateCopyrighted();
+        case 8:
+            return getTermsDateSubmitted();
+        case 9:
+            return getEasDate();
+        case 10:
+            return getEasCreated();
+        case 11:
+            return getEasValid();
+        case 12:
+            return getEasAvailable();
+        case 13:
+            return getEasIssued();
+        case 14:
+            return getEasModified();
+        case 15:
+            return getEasDateAccepted();
+        case 16:
+            return getEasDateCopyrighted();
+        case 17:
+            return getEasDateSubmitted();
+        default:
+            return super.getTermList(index);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> peekTermList(final int index) {
+        switch (index) {
+        case 0:
+            return dcDate;
+        case 1:
+            return termsCreated;
+        case 2:
+            return termsValid;
+        case 3:
+            return termsAvailable;
+        case 4:
+            return termsIssued;
+        case 5:
+            return termsModified;
+        case 6:
+            return termsDateAccepted;
+        case 7:
+            return termsDateCopyrighted;
+        case 8:
+            return termsDateSubmitted;
+        case 9:
+            return easDate;
+        case 10:
+            return easCreated;
+        case 11:
+            return easValid;
+        case 12:
+            return easAvailable;
+        case 13:
+            return easIssued;
+        case 14:
+            return easModified;
+        case 15:
+            return easDateAccepted;
+        case 16:
+            return easDateCopyrighted;
+        case 17:
+            return easDateSubmitted;
+        default:
+            return super.peekTermList(index);
+        }
+    }
+
     public DateTime getDateCreated() {
         DateTime dt = null;
         if (easCreated != null && easCreated.size() > 0) {
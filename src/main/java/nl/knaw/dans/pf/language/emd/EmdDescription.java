@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 
 /**
  * Container for resource properties of category description.
@@ -54,6 +55,23 @@ public class EmdDescription extends AbstractEmdContainer {
         return Arrays.asList(TERMS);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> getTermList(final int index) {
+        switch (index) {
+        case 0:
+            return getDcDescription();
+        case 1:
+            return getTermsTableOfContents();
+        case 2:
+            return getTermsAbstract();
+        default:
+            return super.getTermList(index);
+        }
+    }
+
     /**
      * Get a list of resource properties known as 'description' in the "http://purl.org/dc/elements/1.1/" name space.
      * 
@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 
 /**
  * Container for resource properties of category format.
@@ -53,6 +54,23 @@ public class EmdFormat extends AbstractEmdContainer {
         return Arrays.asList(TERMS);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> getTermList(final int index) {
+        switch (index) {
+        case 0:
+            return getDcFormat();
+        case 1:
+            return getTermsExtent();
+        case 2:
+            return getTermsMedium();
+        default:
+            return super.getTermList(index);
+        }
+    }
+
     /**
      * Get a list of resource properties known as 'format' in the "http://purl.org/dc/elements/1.1/" name space.
      * 
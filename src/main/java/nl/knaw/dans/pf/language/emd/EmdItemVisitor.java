@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd;
+
+import java.util.List;
+
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
+
+/**
+ * Visitor that receives the items of an {@link EasyMetadata} or {@link EmdContainer} in one pass. The visit is driven from the lists the containers hold: no
+ * containers or lists are instantiated and no items are copied. Only non-empty containers and terms are visited. Each callback can end the visit by returning
+ * <code>false</code>.
+ * 
+ * @see EasyMetadata#accept(EmdItemVisitor)
+ * @see EmdContainer#accept(EmdItemVisitor)
+ */
+public interface EmdItemVisitor {
+
+    /**
+     * Start the visit of a non-empty container.
+     * 
+     * @param mdContainer
+     *        the kind of container
+     * @param container
+     *        the container
+     * @return <code>true</code> to continue the visit, <code>false</code> to end it
+     */
+    boolean startContainer(MDContainer mdContainer, EmdContainer container);
+
+    /**
+     * Start the visit of a non-empty term. The given list is the list held by the container; it should not be modified during the visit.
+     * 
+     * @param term
+     *        the term
+     * @param items
+     *        the items of the term
+     * @return <code>true</code> to continue the visit with the items of this term, <code>false</code> to end it
+     */
+    boolean term(Term term, List<? extends MetadataItem> items);
+
+    /**
+     * Visit an item.
+     * 
+     * @param term
+     *        the term of the item
+     * @param item
+     *        the item, may be <code>null</code>
+     * @return <code>true</code> to continue the visit, <code>false</code> to end it
+     */
+    boolean item(Term term, MetadataItem item);
+
+}
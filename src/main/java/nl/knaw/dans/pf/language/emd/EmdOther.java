@@ -21,6 +21,8 @@ import java.util.List;
 
 import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific;
 import nl.knaw.dans.pf.language.emd.types.BasicRemark;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
+import nl.knaw.dans.pf.language.emd.types.Revisions;
 
 /**
  * Container for anything that can't be expressed in the Dublin Core Metadata Element Set, nor in the additional elements from the DCMI Metadata Terms. This
@@ -55,6 +57,27 @@ public class EmdOther extends AbstractEmdContainer {
         return Arrays.asList(TERMS);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> getTermList(final int index) {
+        switch (index) {
+        case 0:
+            return getEasRemarks();
+        default:
+            return super.getTermList(index);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRevision() {
+        return Revisions.fold(Revisions.fold(super.getRevision(), easApplicationSpecific), propertyListCollection);
+    }
+
     /**
      * Get a list of remarks.
      * 
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 
 import nl.knaw.dans.pf.language.emd.types.BasicIdentifier;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 import nl.knaw.dans.pf.language.emd.types.Relation;
 
 /**
@@ -181,6 +182,140 @@ public class EmdRelation extends AbstractEmdContainer {
         return Arrays.asList(TERMS);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> getTermList(final int index) {
+        switch (index) {
+        case 0:
+            return getDcRelation();
+        case 1:
+            return getTermsConformsTo();
+        case 2:
+            return getTermsIsVersionOf();
+        case 3:
+            return getTermsHasVersion();
+        case 4:
+            return getTermsIsReplacedBy();
+        case 5:
+            return getTermsReplaces();
+        case 6:
+            return getTermsIsRequiredBy();
+        case 7:
+            return getTermsRequires();
+        case 8:
+            return getTermsIsPartOf();
+        case 9:
+            return getTermsHasPart();
+        case 10:
+            return getTermsIsReferencedBy();
+        case 11:
+            return getTermsReferences();
+        case 12:
+            return getTermsIsFormatOf();
+        case 13:
+            return getTermsHasFormat();
+        case 14:
+            return getEasRelation();
+        case 15:
+            return getEasConformsTo();
+        case 16:
+            return getEasIsVersionOf();
+        case 17:
+            return getEasHasVersion();
+        case 18:
+            return getEasIsReplacedBy();
+        case 19:
+            return getEasReplaces();
+        case 20:
+            return getEasIsRequiredBy();
+        case 21:
+            return getEasRequires();
+        case 22:
+            return getEasIsPartOf();
+        case 23:
+            return getEasHasPart();
+        case 24:
+            return getEasIsReferencedBy();
+        case 25:
+            return getEasReferences();
+        case 26:
+            return getEasIsFormatOf();
+        case 27:
+            return getEasHasFormat();
+        default:
+            return super.getTermList(index);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> peekTermList(final int index) {
+        switch (index) {
+        case 0:
+            return dcRelation;
+        case 1:
+            return termsConformsTo;
+        case 2:
+            return termsIsVersionOf;
+        case 3:
+            return termsHasVersion;
+        case 4:
+            return termsIsReplacedBy;
+        case 5:
+            return termsReplaces;
+        case 6:
+            return termsIsRequiredBy;
+        case 7:
+            return termsRequires;
+        case 8:
+            return termsIsPartOf;
+        case 9:
+            return termsHasPart;
+        case 10:
+            return termsIsReferencedBy;
+        case 11:
+            return termsReferences;
+        case 12:
+            return termsIsFormatOf;
+        case 13:
+            return termsHasFormat;
+        case 14:
+            return easRelation;
+        case 15:
+            return easConformsTo;
+        case 16:
+            return easIsVersionOf;
+        case 17:
+            return easHasVersion;
+        case 18:
+            return easIsReplacedBy;
+        case 19:
+            return easReplaces;
+        case 20:
+            return easIsRequiredBy;
+        case 21:
+            return easRequires;
+        case 22:
+            return easIsPartOf;
+        case 23:
+            return easHasPart;
+        case 24:
+            return easIsReferencedBy;
+        case 25:
+            return easReferences;
+        case 26:
+            return easIsFormatOf;
+        case 27:
+            return easHasFormat;
+        default:
+            return super.peekTermList(index);
+        }
+    }
+
     /**
      * Get a list of resource properties known as 'relation' in the "http://purl.org/dc/elements/1.1/" name space.
      * 
@@ -24,6 +24,7 @@ import java.util.Map;
 import nl.knaw.dans.common.lang.dataset.AccessCategory;
 import nl.knaw.dans.pf.language.emd.types.BasicString;
 import nl.knaw.dans.pf.language.emd.types.EmdScheme;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,6 +86,38 @@ public class EmdRights extends AbstractEmdContainer {
         return Arrays.asList(TERMS);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> getTermList(final int index) {
+        switch (index) {
+        case 0:
+            return getDcRights();
+        case 1:
+            return getTermsAccessRights();
+        case 2:
+            return getTermsLicense();
+        case 3:
+            return getTermsRightsHolder();
+        default:
+            return super.getTermList(index);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected List<? extends MetadataItem> peekTermList(final int index) {
+        switch (index) {
+        case 2:
+            return termsLicense;
+        default:
+            return super.peekTermList(index);
+        }
+    }
+
     /**
      * Get a list of resource properties known as 'rights' in the "http://purl.org/dc/elements/1.1/" name space.
      * 
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd;
+
+import java.io.IOException;
+
+/**
+ * Compact encoding of easymetadata for java serialization. {@link EasyMetadataImpl} writes its containers with the first implementation that the
+ * {@link java.util.ServiceLoader} finds, and writes them as plain fields if there is none. Implementations must be stateless and have a public no-argument
+ * constructor.
+ */
+public interface EmdSerialCodec {
+
+    /**
+     * Encode the given easymetadata.
+     * 
+     * @param emd
+     *        the easymetadata to encode
+     * @return the encoded easymetadata
+     */
+    byte[] encode(EasyMetadata emd);
+
+    /**
+     * Decode easymetadata.
+     * 
+     * @param bytes
+     *        the encoded easymetadata
+     * @return the easymetadata
+     * @throws IOException
+     *         if the bytes are not encoded easymetadata of a supported version
+     */
+    EasyMetadata decode(byte[] bytes) throws IOException;
+
+}
@@ -19,11 +19,16 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class PropertyList implements Serializable {
+import nl.knaw.dans.pf.language.emd.types.Modifiable;
+import nl.knaw.dans.pf.language.emd.types.Revisions;
+
+public class PropertyList implements Serializable, Modifiable {
 
     private static final long serialVersionUID = 442071239235827438L;
     private String comment;
     private List<Property> properties = new ArrayList<Property>();;
+    // 0 if modified since the revision was last asked for.
+    private transient long revision;
 
     public PropertyList() {
 
@@ -35,6 +40,7 @@ public class PropertyList implements Serializable {
 
     public void setComment(String comment) {
         this.comment = comment;
+        revision = 0;
     }
 
     public List<Property> getProperties() {
@@ -47,6 +53,7 @@ public class PropertyList implements Serializable {
 
     public void setProperties(List<Property> properties) {
         this.properties = properties;
+        revision = 0;
     }
 
     public String getValue(String key, String defaultValue) {
@@ -60,11 +67,20 @@ public class PropertyList implements Serializable {
         return value;
     }
 
-    public static class Property implements Serializable {
+    public long getRevision() {
+        if (revision == 0) {
+            revision = Revisions.next();
+        }
+        return Revisions.fold(revision, properties);
+    }
+
+    public static class Property implements Serializable, Modifiable {
 
         private static final long serialVersionUID = 1L;
         private String key;
         private String value;
+        // 0 if modified since the revision was last asked for.
+        private transient long revision;
 
         @SuppressWarnings("unused")
         private Property() {
@@ -82,6 +98,7 @@ public class PropertyList implements Serializable {
 
         public void setKey(String key) {
             this.key = key;
+            revision = 0;
         }
 
         public String getValue() {
@@ -90,6 +107,14 @@ public class PropertyList implements Serializable {
 
         public void setValue(String value) {
             this.value = value;
+            revision = 0;
+        }
+
+        public long getRevision() {
+            if (revision == 0) {
+                revision = Revisions.next();
+            }
+            return revision;
         }
     }
 
@@ -16,9 +16,10 @@
 package nl.knaw.dans.pf.language.emd;
 
 import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
+import nl.knaw.dans.pf.language.emd.exceptions.NoSuchTermException;
 
 /**
  * Describes a metadata term.
@@ -117,6 +118,31 @@ public class Term implements Serializable {
 
     private static final long serialVersionUID = 1035199854115482923L;
 
+    // One slot for each namespace, plus one for terms without namespace.
+    private static final int NAMESPACE_SLOTS = Namespace.values().length + 1;
+
+    /**
+     * The number of distinct (name, namespace) combinations, including those without namespace. Upper bound (exclusive) of {@link #ordinal()}.
+     */
+    public static final int ORDINAL_COUNT = Name.values().length * NAMESPACE_SLOTS;
+
+    // Canonical terms without type, indexed by ordinal.
+    private static final Term[] CANONICAL = new Term[ORDINAL_COUNT];
+
+    // Parsed qualified names. Bounded, so that arbitrary input cannot grow it indefinitely.
+    private static final int MAX_PARSED = 1024;
+
+    private static final ConcurrentMap<String, Term> PARSED = new ConcurrentHashMap<String, Term>();
+
+    static {
+        for (Name name : Name.values()) {
+            CANONICAL[ordinal(name, null)] = new Term(name);
+            for (Namespace namespace : Namespace.values()) {
+                CANONICAL[ordinal(name, namespace)] = new Term(name, namespace);
+            }
+        }
+    }
+
     private final Name name;
     private final Namespace namespace;
     private final Class<?> clazz;
@@ -202,6 +228,91 @@ public class Term implements Serializable {
         this.clazz = clazz;
     }
 
+    /**
+     * Get the canonical term with the given name and without namespace. Unlike the constructor, this method does not create a new instance.
+     * 
+     * @param name
+     *        the name of the term
+     * @return the canonical term
+     * @throws NoSuchTermException
+     *         if <code>name</code> is <code>null</code>
+     */
+    public static Term of(final Name name) throws NoSuchTermException {
+        return of(name, null);
+    }
+
+    /**
+     * Get the canonical term with the given name and namespace. Unlike the constructor, this method does not create a new instance.
+     * 
+     * @param name
+     *        name
+     * @param namespace
+     *        name space, may be <code>null</code>
+     * @return the canonical term
+     * @throws NoSuchTermException
+     *         if <code>name</code> is <code>null</code>
+     */
+    public static Term of(final Name name, final Namespace namespace) throws NoSuchTermException {
+        if (name == null) {
+            throw new NoSuchTermException("Unknown term: null");
+        }
+        return CANONICAL[ordinal(name, namespace)];
+    }
+
+    /**
+     * Get the canonical term with the given ordinal.
+     * 
+     * @param ordinal
+     *        ordinal of the term, as returned by {@link #ordinal()}
+     * @return the canonical term
+     * @throws IndexOutOfBoundsException
+     *         if ordinal is not in the range [0, {@link #ORDINAL_COUNT})
+     */
+    public static Term of(final int ordinal) {
+        return CANONICAL[ordinal];
+    }
+
+    /**
+     * Get the canonical term for the given qualified name. See {@link #Term(String)} for the format of <code>qName</code>. Results are cached, so repeated
+     * parsing of the same string does not allocate.
+     * 
+     * @param qName
+     *        string representing name or qualified name of the term
+     * @return the canonical term
+     * @throws NoSuchTermException
+     *         if <code>qName</code> is <code>null</code>
+     * @throws IllegalArgumentException
+     *         if <code>qName</code> does not represent a term
+     */
+    public static Term parse(final String qName) throws NoSuchTermException {
+        if (qName == null) {
+            throw new NoSuchTermException("Unknown term: null");
+        }
+        Term term = PARSED.get(qName);
+        if (term == null) {
+            final Term parsed = new Term(qName);
+            term = of(parsed.name, parsed.namespace);
+            if (PARSED.size() < MAX_PARSED) {
+                PARSED.putIfAbsent(qName, term);
+            }
+        }
+        return term;
+    }
+
+    private static int ordinal(final Name name, final Namespace namespace) {
+        return name.ordinal() * NAMESPACE_SLOTS + (namespace == null ? 0 : namespace.ordinal() + 1);
+    }
+
+    /**
+     * Get the ordinal of this term. Terms that are equal have the same ordinal, which is in the range [0, {@link #ORDINAL_COUNT}), and can be used to index
+     * arrays.
+     * 
+     * @return the ordinal of this term
+     */
+    public int ordinal() {
+        return ordinal(name, namespace);
+    }
+
     /**
      * Get the name.
      * 
@@ -258,7 +369,7 @@ public class Term implements Serializable {
             return true;
         }
         final Term rhs = (Term) obj;
-        return new EqualsBuilder().append(name, rhs.name).append(namespace, rhs.namespace).isEquals();
+        return name == rhs.name && namespace == rhs.namespace;
     }
 
     /**
@@ -268,7 +379,7 @@ public class Term implements Serializable {
      */
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(7, 37).append(name).append(namespace).toHashCode();
+        return name == null ? 0 : ordinal() + 1;
     }
 
     /**
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+
+import nl.knaw.dans.pf.language.emd.types.Author;
+import nl.knaw.dans.pf.language.emd.types.BasicDate;
+import nl.knaw.dans.pf.language.emd.types.LanguageTokenizedString;
+import nl.knaw.dans.pf.language.emd.types.Spatial;
+
+/**
+ * Fields and constructors that JiBX uses directly, where the accessors would normalize or validate. Readers and codecs in this package use them to build the
+ * same objects as JiBX.
+ */
+final class BeanFields {
+
+    static final Field LANGUAGE = getField(LanguageTokenizedString.class, "language");
+    static final Field DATE_SCHEME = getField(BasicDate.class, "scheme");
+    static final Field AUTHOR_TITLE = getField(Author.class, "title");
+    static final Field AUTHOR_INITIALS = getField(Author.class, "initials");
+    static final Field AUTHOR_PREFIX = getField(Author.class, "prefix");
+    static final Field AUTHOR_SURNAME = getField(Author.class, "surname");
+    static final Field SPATIAL_POINT = getField(Spatial.class, "point");
+    static final Field SPATIAL_BOX = getField(Spatial.class, "box");
+
+    // The JiBX constructor, which does not instantiate any containers.
+    private static final Constructor<EasyMetadataImpl> EASY_METADATA = getConstructor(EasyMetadataImpl.class);
+
+    private BeanFields() {
+        // constants
+    }
+
+    private static Field getField(final Class<?> clazz, final String name) {
+        try {
+            final Field field = clazz.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        }
+        catch (final NoSuchFieldException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static <T> Constructor<T> getConstructor(final Class<T> clazz) {
+        try {
+            final Constructor<T> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        }
+        catch (final NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Construct easymetadata as JiBX does, without containers.
+     * 
+     * @return new easymetadata without containers
+     */
+    static EasyMetadataImpl newEasyMetadata() {
+        try {
+            return EASY_METADATA.newInstance();
+        }
+        catch (final InstantiationException e) {
+            throw new RuntimeException(e);
+        }
+        catch (final IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        catch (final InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static void set(final Field field, final Object target, final Object value) {
+        try {
+            field.set(target, value);
+        }
+        catch (final IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static Object get(final Field field, final Object target) {
+        try {
+            return field.get(target);
+        }
+        catch (final IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
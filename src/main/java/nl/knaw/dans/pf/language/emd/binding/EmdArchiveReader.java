@@ -0,0 +1,341 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.xml.exc.XMLDeserializationException;
+
+/**
+ * Reads archive files written by {@link EmdArchiveWriter}. The index is read when the reader is opened. A single record is read with one positioned read of
+ * its block, of which only the part up to the record is inflated. The {@link #iterator()} reads all blocks in file order.
+ * <p/>
+ * The file is read through its {@link FileChannel}, or from a memory-mapped buffer if so requested. Files larger than 2GB cannot be mapped and are always
+ * read through the channel. Except for iterators, instances are thread safe.
+ */
+public class EmdArchiveReader implements Closeable, Iterable<Map.Entry<String, byte[]>> {
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+
+    // Index entries by id, in file order.
+    private final Map<String, IndexEntry> index;
+
+    // Offsets and lengths of the blocks, in file order.
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+
+    /**
+     * Opens an archive file, to be read through its channel.
+     * 
+     * @param file
+     *        the archive file
+     * @throws IOException
+     *         if the file cannot be read or is not an archive file of a supported version
+     */
+    public EmdArchiveReader(final File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Opens an archive file.
+     * 
+     * @param file
+     *        the archive file
+     * @param memoryMapped
+     *        <code>true</code> to read from a memory-mapped buffer, <code>false</code> to read through the channel of the file
+     * @throws IOException
+     *         if the file cannot be read or is not an archive file of a supported version
+     */
+    public EmdArchiveReader(final File file, final boolean memoryMapped) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        boolean opened = false;
+        try {
+            channel = this.file.getChannel();
+            final long size = channel.size();
+            mapped = memoryMapped && size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+            if (size < EmdArchiveWriter.HEADER_LENGTH + EmdArchiveWriter.TRAILER_LENGTH) {
+                throw new IOException("Not an archive file: " + file);
+            }
+            final DataInputStream header = read(0, EmdArchiveWriter.HEADER_LENGTH);
+            checkMagic(header, file);
+            final int version = header.readInt();
+            if (version != EmdArchiveWriter.VERSION) {
+                throw new IOException("Unsupported version " + version + ": " + file);
+            }
+            final long trailerOffset = size - EmdArchiveWriter.TRAILER_LENGTH;
+            final DataInputStream trailer = read(trailerOffset, EmdArchiveWriter.TRAILER_LENGTH);
+            final long indexOffset = trailer.readLong();
+            checkMagic(trailer, file);
+            if (indexOffset < EmdArchiveWriter.HEADER_LENGTH || indexOffset > trailerOffset) {
+                throw new IOException("Corrupt archive file: " + file);
+            }
+            index = readIndex(read(indexOffset, (int) (trailerOffset - indexOffset)));
+            final List<IndexEntry> blocks = new ArrayList<IndexEntry>();
+            for (IndexEntry entry : index.values()) {
+                if (blocks.isEmpty() || blocks.get(blocks.size() - 1).blockOffset != entry.blockOffset) {
+                    blocks.add(entry);
+                }
+            }
+            blockOffsets = new long[blocks.size()];
+            blockLengths = new int[blocks.size()];
+            for (int i = 0; i < blockOffsets.length; i++) {
+                blockOffsets[i] = blocks.get(i).blockOffset;
+                blockLengths[i] = blocks.get(i).blockLength;
+            }
+            opened = true;
+        }
+        finally {
+            if (!opened) {
+                this.file.close();
+            }
+        }
+    }
+
+    private static void checkMagic(final DataInputStream in, final File file) throws IOException {
+        final byte[] magic = new byte[EmdArchiveWriter.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(EmdArchiveWriter.MAGIC, magic)) {
+            throw new IOException("Not an archive file: " + file);
+        }
+    }
+
+    private static Map<String, IndexEntry> readIndex(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        final Map<String, IndexEntry> entries = new LinkedHashMap<String, IndexEntry>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            final String id = in.readUTF();
+            entries.put(id, new IndexEntry(in.readLong(), in.readInt(), in.readInt(), in.readInt()));
+        }
+        return entries;
+    }
+
+    /**
+     * Get the number of records.
+     * 
+     * @return the number of records
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Get the ids of the records, in file order.
+     * 
+     * @return unmodifiable set of ids
+     */
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Tells if the archive holds a record with the given id.
+     * 
+     * @param id
+     *        the id of the record
+     * @return <code>true</code> if there is a record with the given id, <code>false</code> otherwise
+     */
+    public boolean contains(final String id) {
+        return index.containsKey(id);
+    }
+
+    /**
+     * Get the xml of a record.
+     * 
+     * @param id
+     *        the id of the record
+     * @return the xml of the record, or <code>null</code> if there is no record with the given id
+     * @throws IOException
+     *         if the file cannot be read or is corrupt
+     */
+    public byte[] getXml(final String id) throws IOException {
+        byte[] xml = null;
+        final IndexEntry entry = index.get(id);
+        if (entry != null) {
+            final int end = entry.recordOffset + entry.recordLength;
+            final byte[] block = inflate(readBlock(entry.blockOffset, entry.blockLength), end);
+            xml = Arrays.copyOfRange(block, entry.recordOffset, end);
+        }
+        return xml;
+    }
+
+    /**
+     * Get a record as easymetadata. The record is unmarshalled with {@link EmdBindingEngine#instance()}.
+     * 
+     * @param id
+     *        the id of the record
+     * @return the easymetadata, or <code>null</code> if there is no record with the given id
+     * @throws IOException
+     *         if the file cannot be read or is corrupt
+     * @throws XMLDeserializationException
+     *         if the record cannot be unmarshalled
+     */
+    public EasyMetadata get(final String id) throws IOException, XMLDeserializationException {
+        final byte[] xml = getXml(id);
+        return xml == null ? null : EmdBindingEngine.instance().unmarshal(xml);
+    }
+
+    /**
+     * Iterate the records in file order, as entries of id and xml. The blocks are read sequentially. An {@link IOException} while reading is thrown as the
+     * cause of a {@link RuntimeException}.
+     * 
+     * @return iterator over the records
+     */
+    public Iterator<Map.Entry<String, byte[]>> iterator() {
+        return new RecordIterator();
+    }
+
+    /**
+     * Close the file.
+     * 
+     * @throws IOException
+     *         if the file cannot be closed
+     */
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private byte[] readBlock(final long offset, final int length) throws IOException {
+        final byte[] bytes = new byte[length];
+        if (mapped == null) {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) == -1) {
+                    throw new EOFException("Unexpected end of archive file at " + (offset + buffer.position()));
+                }
+            }
+        } else {
+            final ByteBuffer buffer = mapped.duplicate();
+            buffer.position((int) offset);
+            buffer.get(bytes);
+        }
+        return bytes;
+    }
+
+    private DataInputStream read(final long offset, final int length) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(readBlock(offset, length)));
+    }
+
+    // Inflates the given block up to the given length, or entirely if length is -1.
+    private static byte[] inflate(final byte[] block, final int length) throws IOException {
+        final DataInputStream header = new DataInputStream(new ByteArrayInputStream(block, 0, EmdArchiveWriter.BLOCK_HEADER_LENGTH));
+        final int compressedLength = header.readInt();
+        final int uncompressedLength = header.readInt();
+        if (compressedLength != block.length - EmdArchiveWriter.BLOCK_HEADER_LENGTH || length > uncompressedLength) {
+            throw new IOException("Corrupt block in archive file");
+        }
+        final byte[] inflated = new byte[length == -1 ? uncompressedLength : length];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(block, EmdArchiveWriter.BLOCK_HEADER_LENGTH, compressedLength);
+            int count = 0;
+            while (count < inflated.length) {
+                final int n = inflater.inflate(inflated, count, inflated.length - count);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Corrupt block in archive file");
+                }
+                count += n;
+            }
+        }
+        catch (final DataFormatException e) {
+            throw new IOException("Corrupt block in archive file", e);
+        }
+        finally {
+            inflater.end();
+        }
+        return inflated;
+    }
+
+    private static final class IndexEntry {
+
+        private final long blockOffset;
+        private final int blockLength;
+        private final int recordOffset;
+        private final int recordLength;
+
+        IndexEntry(final long blockOffset, final int blockLength, final int recordOffset, final int recordLength) {
+            this.blockOffset = blockOffset;
+            this.blockLength = blockLength;
+            this.recordOffset = recordOffset;
+            this.recordLength = recordLength;
+        }
+    }
+
+    private final class RecordIterator implements Iterator<Map.Entry<String, byte[]>> {
+
+        private int nextBlock;
+        private DataInputStream block;
+
+        /** {@inheritDoc} */
+        public boolean hasNext() {
+            try {
+                while ((block == null || block.available() == 0) && nextBlock < blockOffsets.length) {
+                    block = new DataInputStream(new ByteArrayInputStream(inflate(readBlock(blockOffsets[nextBlock], blockLengths[nextBlock]), -1)));
+                    nextBlock++;
+                }
+                return block != null && block.available() > 0;
+            }
+            catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public Map.Entry<String, byte[]> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                final String id = block.readUTF();
+                final byte[] xml = new byte[block.readInt()];
+                block.readFully(xml);
+                return new AbstractMap.SimpleImmutableEntry<String, byte[]>(id, xml);
+            }
+            catch (final IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
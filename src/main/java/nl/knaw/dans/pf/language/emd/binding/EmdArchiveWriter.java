@@ -0,0 +1,267 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.xml.exc.XMLSerializationException;
+
+/**
+ * Writes easymetadata records to a single archive file, to be read with {@link EmdArchiveReader}. Records are xml, keyed by dataset id. The file consists
+ * of:
+ * <ul>
+ * <li>a header: {@link #MAGIC} and {@link #VERSION};</li>
+ * <li>blocks of records: the compressed length and the uncompressed length of the block, followed by the deflated records. Each record is its id and its
+ * xml, both preceded by their length. A block is written when it holds at least the block size of records;</li>
+ * <li>an index: the number of records, followed by per record its id, the offset and length of its block, and the offset and length of its xml in the
+ * uncompressed block;</li>
+ * <li>a trailer: the offset of the index and {@link #MAGIC}.</li>
+ * </ul>
+ * All numbers are big-endian, ids are written as modified UTF-8 by {@link DataOutputStream#writeUTF(String)}. Reading all records is sequential I/O, a single
+ * record takes one positioned read of its block.
+ * <p/>
+ * Instances are not thread safe.
+ */
+public class EmdArchiveWriter implements Closeable {
+
+    /**
+     * First and last bytes of an archive file.
+     */
+    public static final byte[] MAGIC = {'E', 'M', 'D', 'A'};
+
+    /**
+     * Version of the format written.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Default minimum number of uncompressed bytes in a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    // Length of the header: magic and version.
+    static final int HEADER_LENGTH = MAGIC.length + 4;
+
+    // Length of the trailer: offset of the index and magic.
+    static final int TRAILER_LENGTH = 8 + MAGIC.length;
+
+    // Length of the header of a block: compressed and uncompressed length.
+    static final int BLOCK_HEADER_LENGTH = 8;
+
+    private final DataOutputStream out;
+    private final int blockSize;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+    private final DataOutputStream blockOut = new DataOutputStream(block);
+    private byte[] deflated = new byte[1024];
+
+    // Offset in the file of the next block.
+    private long position;
+
+    private final Set<String> ids = new HashSet<String>();
+    private final List<IndexEntry> index = new ArrayList<IndexEntry>();
+    // Index of the first record of the current block.
+    private int blockStart;
+
+    private boolean closed;
+
+    /**
+     * Constructs a writer with the {@link #DEFAULT_BLOCK_SIZE}.
+     * 
+     * @param file
+     *        the file to write, will be overwritten
+     * @throws IOException
+     *         if the file cannot be opened
+     */
+    public EmdArchiveWriter(final File file) throws IOException {
+        this(file, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *        the file to write, will be overwritten
+     * @param blockSize
+     *        minimum number of uncompressed bytes in a block. Larger blocks compress better, smaller blocks make reading a single record cheaper
+     * @throws IOException
+     *         if the file cannot be opened
+     */
+    public EmdArchiveWriter(final File file, final int blockSize) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.blockSize = blockSize;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        position = HEADER_LENGTH;
+    }
+
+    /**
+     * Add easymetadata, keyed by its {@link nl.knaw.dans.pf.language.emd.EmdIdentifier#getDatasetId() dataset id}. The easymetadata is marshalled with
+     * {@link EmdBindingEngine#instance()}.
+     * 
+     * @param emd
+     *        the easymetadata to add
+     * @throws XMLSerializationException
+     *         if the easymetadata cannot be marshalled
+     * @throws IOException
+     *         if the file cannot be written
+     * @throws IllegalArgumentException
+     *         if the easymetadata has no dataset id, or one that was added before
+     */
+    public void add(final EasyMetadata emd) throws XMLSerializationException, IOException {
+        final String id = emd.getEmdIdentifier().getDatasetId();
+        if (id == null) {
+            throw new IllegalArgumentException("Easymetadata has no dataset id");
+        }
+        add(id, EmdBindingEngine.instance().marshal(emd));
+    }
+
+    /**
+     * Add an easymetadata record.
+     * 
+     * @param id
+     *        the id of the record
+     * @param xml
+     *        the easymetadata as xml
+     * @throws IOException
+     *         if the file cannot be written
+     * @throws IllegalArgumentException
+     *         if the id was added before
+     */
+    public void add(final String id, final byte[] xml) throws IOException {
+        if (closed) {
+            throw new IOException("Archive is closed");
+        }
+        if (!ids.add(id)) {
+            throw new IllegalArgumentException("Duplicate id: " + id);
+        }
+        blockOut.writeUTF(id);
+        blockOut.writeInt(xml.length);
+        index.add(new IndexEntry(id, block.size(), xml.length));
+        blockOut.write(xml);
+        if (block.size() >= blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Get the number of records added.
+     * 
+     * @return the number of records added
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Write the last block, the index and the trailer, and close the file.
+     * 
+     * @throws IOException
+     *         if the file cannot be written
+     */
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                writeBlock();
+                writeIndex();
+            }
+            finally {
+                deflater.end();
+                out.close();
+            }
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (block.size() > 0) {
+            final byte[] uncompressed = block.toByteArray();
+            deflater.reset();
+            deflater.setInput(uncompressed);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == deflated.length) {
+                    final byte[] larger = new byte[deflated.length * 2];
+                    System.arraycopy(deflated, 0, larger, 0, length);
+                    deflated = larger;
+                }
+                length += deflater.deflate(deflated, length, deflated.length - length);
+            }
+            out.writeInt(length);
+            out.writeInt(uncompressed.length);
+            out.write(deflated, 0, length);
+            final int blockLength = BLOCK_HEADER_LENGTH + length;
+            for (int i = blockStart; i < index.size(); i++) {
+                index.get(i).setBlock(position, blockLength);
+            }
+            position += blockLength;
+            blockStart = index.size();
+            block.reset();
+        }
+    }
+
+    private void writeIndex() throws IOException {
+        final long indexOffset = position;
+        out.writeInt(index.size());
+        for (IndexEntry entry : index) {
+            out.writeUTF(entry.id);
+            out.writeLong(entry.blockOffset);
+            out.writeInt(entry.blockLength);
+            out.writeInt(entry.recordOffset);
+            out.writeInt(entry.recordLength);
+        }
+        out.writeLong(indexOffset);
+        out.write(MAGIC);
+    }
+
+    private static final class IndexEntry {
+
+        private final String id;
+        private final int recordOffset;
+        private final int recordLength;
+        private long blockOffset;
+        private int blockLength;
+
+        IndexEntry(final String id, final int recordOffset, final int recordLength) {
+            this.id = id;
+            this.recordOffset = recordOffset;
+            this.recordLength = recordLength;
+        }
+
+        void setBlock(final long offset, final int length) {
+            this.blockOffset = offset;
+            this.blockLength = length;
+        }
+    }
+
+}
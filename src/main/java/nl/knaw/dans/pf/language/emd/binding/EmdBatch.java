@@ -0,0 +1,583 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EmdBean;
+
+/**
+ * Unmarshals and marshals many easymetadata documents in parallel. Records are processed on a fixed pool of threads, while at most a given number of records
+ * are read, processed or waiting for delivery at the same time; the thread that feeds the batch blocks when that number is reached. Results and errors are
+ * delivered to a {@link Callback} one at a time and in input order.
+ * <p/>
+ * Unmarshalling and marshalling use {@link EmdBindingEngine#instance()}, so every pool thread reuses its own JiBX contexts.
+ */
+public class EmdBatch {
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final int threads;
+    private final int maxInFlight;
+
+    /**
+     * A named source of one document.
+     */
+    public interface Input {
+
+        /**
+         * Get the name of this input, for instance a file name.
+         * 
+         * @return the name of this input
+         */
+        String getName();
+
+        /**
+         * Open the document. The stream is closed by the batch.
+         * 
+         * @return a stream of the document
+         * @throws IOException
+         *         if the document could not be opened
+         */
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Receives the outcome of every record, in input order and never concurrently.
+     * 
+     * @param <T>
+     *        type of the results
+     */
+    public interface Callback<T> {
+
+        /**
+         * Called with the result of a record.
+         * 
+         * @param index
+         *        the index of the record in the input
+         * @param name
+         *        the name of the record
+         * @param result
+         *        the result
+         */
+        void onResult(int index, String name, T result);
+
+        /**
+         * Called if processing a record failed.
+         * 
+         * @param index
+         *        the index of the record in the input
+         * @param name
+         *        the name of the record
+         * @param error
+         *        the cause of the failure
+         */
+        void onError(int index, String name, Exception error);
+    }
+
+    /**
+     * Processing of a single record.
+     * 
+     * @param <S>
+     *        type of the records
+     * @param <T>
+     *        type of the results
+     */
+    public interface Task<S, T> {
+
+        /**
+         * Get the name of a record, used in callbacks.
+         * 
+         * @param source
+         *        the record
+         * @return the name of the record
+         */
+        String getName(S source);
+
+        /**
+         * Process a record. Called concurrently on the threads of the batch.
+         * 
+         * @param source
+         *        the record
+         * @return the result
+         * @throws Exception
+         *         if the record could not be processed
+         */
+        T process(S source) throws Exception;
+    }
+
+    /**
+     * Counts and timing of a finished batch.
+     */
+    public static class Statistics {
+
+        private final int records;
+        private final int errors;
+        private final long elapsedMillis;
+
+        Statistics(final int records, final int errors, final long elapsedMillis) {
+            this.records = records;
+            this.errors = errors;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getRecords() {
+            return records;
+        }
+
+        public int getErrors() {
+            return errors;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getRecordsPerSecond() {
+            return elapsedMillis == 0 ? records * 1000.0 : records * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return records + " records, " + errors + " errors in " + elapsedMillis + " ms (" + Math.round(getRecordsPerSecond()) + " records/s)";
+        }
+    }
+
+    /**
+     * Constructs a batch with a thread per available processor and four records in flight per thread.
+     */
+    public EmdBatch() {
+        this(Runtime.getRuntime().availableProcessors(), 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a batch.
+     * 
+     * @param threads
+     *        number of threads to process records on
+     * @param maxInFlight
+     *        maximum number of records that are read, processed or waiting for delivery at the same time
+     */
+    public EmdBatch(final int threads, final int maxInFlight) {
+        if (threads < 1 || maxInFlight < threads) {
+            throw new IllegalArgumentException("Need at least one thread and at least one record in flight per thread");
+        }
+        this.threads = threads;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Get the inputs of the <code>.xml</code> files in the given directory, ordered by name.
+     * 
+     * @param directory
+     *        the directory
+     * @return the inputs of the xml files
+     */
+    public static Iterator<Input> inputs(final File directory) {
+        final File[] files = directory.listFiles();
+        final List<Input> inputs = new ArrayList<Input>();
+        if (files != null) {
+            Arrays.sort(files);
+            for (final File file : files) {
+                if (file.isFile() && file.getName().endsWith(".xml")) {
+                    inputs.add(new Input() {
+
+                        public String getName() {
+                            return file.getPath();
+                        }
+
+                        public InputStream open() throws IOException {
+                            return new FileInputStream(file);
+                        }
+                    });
+                }
+            }
+        }
+        return inputs.iterator();
+    }
+
+    /**
+     * Get the inputs of the file entries in the given zip file, in the order of the zip file. The zip file should stay open until the batch is finished.
+     * 
+     * @param zipFile
+     *        the zip file
+     * @return the inputs of the entries
+     */
+    public static Iterator<Input> inputs(final ZipFile zipFile) {
+        final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        return new Iterator<Input>() {
+
+            private ZipEntry next = advance();
+
+            private ZipEntry advance() {
+                ZipEntry entry = null;
+                while (entry == null && entries.hasMoreElements()) {
+                    final ZipEntry candidate = entries.nextElement();
+                    if (!candidate.isDirectory()) {
+                        entry = candidate;
+                    }
+                }
+                return entry;
+            }
+
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            public Input next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                final ZipEntry entry = next;
+                next = advance();
+                return new Input() {
+
+                    public String getName() {
+                        return entry.getName();
+                    }
+
+                    public InputStream open() throws IOException {
+                        return zipFile.getInputStream(entry);
+                    }
+                };
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Get inputs for the given streams, named after their index.
+     * 
+     * @param streams
+     *        the streams, closed by the batch
+     * @return the inputs of the streams
+     */
+    public static Iterator<Input> inputs(final Iterator<? extends InputStream> streams) {
+        return new Iterator<Input>() {
+
+            private int index;
+
+            public boolean hasNext() {
+                return streams.hasNext();
+            }
+
+            public Input next() {
+                final InputStream stream = streams.next();
+                final String name = "#" + index++;
+                return new Input() {
+
+                    public String getName() {
+                        return name;
+                    }
+
+                    public InputStream open() {
+                        return stream;
+                    }
+                };
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Unmarshal the given inputs.
+     * 
+     * @param inputs
+     *        the inputs to unmarshal
+     * @param callback
+     *        receives the easymetadata or error of every input
+     * @return statistics of the batch
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting
+     */
+    public Statistics unmarshal(final Iterator<Input> inputs, final Callback<EasyMetadata> callback) throws InterruptedException {
+        return run(inputs, new Task<Input, EasyMetadata>() {
+
+            public String getName(final Input input) {
+                return input.getName();
+            }
+
+            public EasyMetadata process(final Input input) throws Exception {
+                final InputStream in = input.open();
+                try {
+                    return EmdBindingEngine.instance().unmarshal(in);
+                }
+                finally {
+                    in.close();
+                }
+            }
+        }, callback);
+    }
+
+    /**
+     * Unmarshal the given inputs and collect the results in input order. Inputs that could not be unmarshalled have a <code>null</code> result; their errors
+     * are put in <code>errors</code>, if given, by input index.
+     * 
+     * @param inputs
+     *        the inputs to unmarshal
+     * @param errors
+     *        map to put errors in, may be <code>null</code>
+     * @return the easymetadata of the inputs in input order
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting
+     */
+    public List<EasyMetadata> unmarshalAll(final Iterator<Input> inputs, final Map<Integer, Exception> errors) throws InterruptedException {
+        final List<EasyMetadata> results = new ArrayList<EasyMetadata>();
+        unmarshal(inputs, new Callback<EasyMetadata>() {
+
+            public void onResult(final int index, final String name, final EasyMetadata result) {
+                results.add(result);
+            }
+
+            public void onError(final int index, final String name, final Exception error) {
+                results.add(null);
+                if (errors != null) {
+                    errors.put(index, error);
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Marshal the given beans to byte arrays.
+     * 
+     * @param beans
+     *        the beans to marshal
+     * @param callback
+     *        receives the document or error of every bean
+     * @return statistics of the batch
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting
+     */
+    public Statistics marshal(final Iterator<? extends EmdBean> beans, final Callback<byte[]> callback) throws InterruptedException {
+        return run(beans, new Task<EmdBean, byte[]>() {
+
+            public String getName(final EmdBean bean) {
+                return bean.getClass().getSimpleName();
+            }
+
+            public byte[] process(final EmdBean bean) throws Exception {
+                return EmdBindingEngine.instance().marshal(bean);
+            }
+        }, callback);
+    }
+
+    /**
+     * Marshal the given named beans to files in the given directory, one file per entry named <code>&lt;name&gt;.xml</code>.
+     * 
+     * @param beans
+     *        the beans to marshal by name
+     * @param directory
+     *        the directory to write to
+     * @param callback
+     *        receives the file or error of every bean
+     * @return statistics of the batch
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting
+     */
+    public Statistics marshal(final Iterator<? extends Map.Entry<String, ? extends EmdBean>> beans, final File directory, final Callback<File> callback)
+            throws InterruptedException
+    {
+        return run(beans, new Task<Map.Entry<String, ? extends EmdBean>, File>() {
+
+            public String getName(final Map.Entry<String, ? extends EmdBean> entry) {
+                return entry.getKey();
+            }
+
+            public File process(final Map.Entry<String, ? extends EmdBean> entry) throws Exception {
+                final File file = new File(directory, entry.getKey() + ".xml");
+                final OutputStream out = new FileOutputStream(file);
+                try {
+                    EmdBindingEngine.instance().marshal(entry.getValue(), out);
+                }
+                finally {
+                    out.close();
+                }
+                return file;
+            }
+        }, callback);
+    }
+
+    /**
+     * Process the given records with the given task.
+     * 
+     * @param <S>
+     *        type of the records
+     * @param <T>
+     *        type of the results
+     * @param sources
+     *        the records; iterated on the calling thread
+     * @param task
+     *        the processing of a record
+     * @param callback
+     *        receives the result or error of every record
+     * @return statistics of the batch
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting
+     */
+    public <S, T> Statistics run(final Iterator<? extends S> sources, final Task<? super S, ? extends T> task, final Callback<? super T> callback)
+            throws InterruptedException
+    {
+        final long start = System.currentTimeMillis();
+        final Semaphore permits = new Semaphore(maxInFlight);
+        final Delivery<T> delivery = new Delivery<T>(callback, permits, maxInFlight);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new BatchThreadFactory());
+        int index = 0;
+        try {
+            while (sources.hasNext() && !delivery.hasFailed()) {
+                final S source = sources.next();
+                final int sourceIndex = index++;
+                permits.acquire();
+                executor.execute(new Runnable() {
+
+                    public void run() {
+                        String name = null;
+                        T result = null;
+                        Exception error = null;
+                        try {
+                            name = task.getName(source);
+                            result = task.process(source);
+                        }
+                        catch (final Exception e) {
+                            error = e;
+                        }
+                        catch (final Error e) {
+                            delivery.fail(e);
+                            throw e;
+                        }
+                        delivery.complete(sourceIndex, name, result, error);
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        delivery.rethrowFailure();
+        return new Statistics(index, delivery.getErrors(), System.currentTimeMillis() - start);
+    }
+
+    // Delivers outcomes in input order and returns a permit for every delivered record.
+    private static class Delivery<T> {
+
+        private final Callback<? super T> callback;
+        private final Semaphore permits;
+        private final int maxInFlight;
+        private final Map<Integer, Object[]> completed = new HashMap<Integer, Object[]>();
+        private int next;
+        private int errors;
+        private Throwable failure;
+
+        Delivery(final Callback<? super T> callback, final Semaphore permits, final int maxInFlight) {
+            this.callback = callback;
+            this.permits = permits;
+            this.maxInFlight = maxInFlight;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void complete(final int index, final String name, final T result, final Exception error) {
+            completed.put(index, new Object[] {name, result, error});
+            Object[] outcome = completed.remove(next);
+            while (outcome != null && failure == null) {
+                try {
+                    if (outcome[2] == null) {
+                        callback.onResult(next, (String) outcome[0], (T) outcome[1]);
+                    } else {
+                        errors++;
+                        callback.onError(next, (String) outcome[0], (Exception) outcome[2]);
+                    }
+                }
+                catch (final RuntimeException e) {
+                    fail(e);
+                }
+                catch (final Error e) {
+                    fail(e);
+                }
+                next++;
+                permits.release();
+                outcome = completed.remove(next);
+            }
+        }
+
+        // Stops delivery and unblocks the feeding thread; the failure is rethrown on that thread.
+        synchronized void fail(final Throwable throwable) {
+            if (failure == null) {
+                failure = throwable;
+                permits.release(maxInFlight);
+            }
+        }
+
+        synchronized boolean hasFailed() {
+            return failure != null;
+        }
+
+        synchronized int getErrors() {
+            return errors;
+        }
+
+        synchronized void rethrowFailure() {
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+        }
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+
+        private final int pool = POOL_COUNT.incrementAndGet();
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "emd-batch-" + pool + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
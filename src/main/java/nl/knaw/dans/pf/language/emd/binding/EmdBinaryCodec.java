@@ -0,0 +1,756 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EmdSerialCodec;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdContainer;
+import nl.knaw.dans.pf.language.emd.EmdItemVisitor;
+import nl.knaw.dans.pf.language.emd.EmdOther;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.PropertyList;
+import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific;
+import nl.knaw.dans.pf.language.emd.types.Author;
+import nl.knaw.dans.pf.language.emd.types.BasicDate;
+import nl.knaw.dans.pf.language.emd.types.BasicIdentifier;
+import nl.knaw.dans.pf.language.emd.types.BasicRemark;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.EmdConstants;
+import nl.knaw.dans.pf.language.emd.types.IsoDate;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
+import nl.knaw.dans.pf.language.emd.types.Relation;
+import nl.knaw.dans.pf.language.emd.types.Spatial;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Binary codec for easymetadata, for caches and queues. It keeps everything the xml keeps, in a fraction of the size and time:
+ * <ul>
+ * <li>numbers and lengths are varints;</li>
+ * <li>containers and terms are written as their ordinals and other enum constants by name;</li>
+ * <li>schemes, scheme ids, languages, identification systems and other repetitive strings are written once per document and referred to by index
+ * thereafter;</li>
+ * <li>dates of {@link IsoDate} are written as epoch milliseconds with their time zone.</li>
+ * </ul>
+ * Items are tagged with their type, so lists may hold any of the item types. Decoding builds objects the way the unmarshallers do: all term lists of an
+ * encoded container are instantiated and fields that JiBX writes directly are written directly.
+ * <p/>
+ * The format starts with {@link #MAGIC}, {@link #VERSION} and {@link #FINGERPRINT}. The ordinals depend on {@link MDContainer}, {@link Term.Name} and
+ * {@link Term.Namespace}, so documents encoded with other constants in those enums are refused instead of decoded into the wrong terms. Instances are
+ * stateless and can be shared between threads.
+ * <p/>
+ * The codec is registered as the {@link EmdSerialCodec} of this library, so {@link nl.knaw.dans.pf.language.emd.EasyMetadataImpl} uses it for java
+ * serialization.
+ */
+public class EmdBinaryCodec implements EmdSerialCodec {
+
+    /**
+     * First bytes of every encoded document.
+     */
+    public static final byte[] MAGIC = {'E', 'M', 'D', 'B'};
+
+    /**
+     * Version of the format written.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Checksum of the constants of {@link MDContainer}, {@link Term.Name} and {@link Term.Namespace}, in their order, as written after the version.
+     */
+    public static final int FINGERPRINT = fingerprint(MDContainer.values(), Term.Name.values(), Term.Namespace.values());
+
+    private static final String UTF_8 = "UTF-8";
+
+    private static final MDContainer[] MD_CONTAINERS = MDContainer.values();
+
+    // Item tags.
+    private static final int NULL = 0;
+    private static final int BASIC_STRING = 1;
+    private static final int BASIC_IDENTIFIER = 2;
+    private static final int BASIC_REMARK = 3;
+    private static final int BASIC_DATE = 4;
+    private static final int ISO_DATE = 5;
+    private static final int AUTHOR = 6;
+    private static final int RELATION = 7;
+    private static final int SPATIAL = 8;
+
+    // Ends the list of containers.
+    private static final int NO_CONTAINER = 0;
+
+    private static int fingerprint(final Enum<?>[]... tables) {
+        final CRC32 crc = new CRC32();
+        try {
+            for (final Enum<?>[] table : tables) {
+                for (final Enum<?> constant : table) {
+                    crc.update(constant.name().getBytes(UTF_8));
+                    crc.update(',');
+                }
+                crc.update(';');
+            }
+        }
+        catch (final UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Encode the given easymetadata.
+     * 
+     * @param emd
+     *        the easymetadata to encode
+     * @return the encoded easymetadata
+     */
+    public byte[] encode(final EasyMetadata emd) {
+        final Encoder encoder = new Encoder();
+        encoder.writeEasyMetadata(emd);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Encode the given easymetadata to the given stream. The stream is not closed.
+     * 
+     * @param emd
+     *        the easymetadata to encode
+     * @param out
+     *        the stream to write to
+     * @throws IOException
+     *         if the stream throws it
+     */
+    public void encode(final EasyMetadata emd, final OutputStream out) throws IOException {
+        final Encoder encoder = new Encoder();
+        encoder.writeEasyMetadata(emd);
+        out.write(encoder.bytes, 0, encoder.count);
+    }
+
+    /**
+     * Decode easymetadata.
+     * 
+     * @param bytes
+     *        the encoded easymetadata
+     * @return the easymetadata
+     * @throws IOException
+     *         if the bytes are not encoded easymetadata of a supported version
+     */
+    public EasyMetadata decode(final byte[] bytes) throws IOException {
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decode easymetadata from part of an array.
+     * 
+     * @param bytes
+     *        array holding the encoded easymetadata
+     * @param offset
+     *        start of the encoded easymetadata
+     * @param length
+     *        length of the encoded easymetadata
+     * @return the easymetadata
+     * @throws IOException
+     *         if the bytes are not encoded easymetadata of a supported version
+     */
+    public EasyMetadata decode(final byte[] bytes, final int offset, final int length) throws IOException {
+        final Decoder decoder = new Decoder(bytes, offset, offset + length);
+        EasyMetadata emd;
+        try {
+            emd = decoder.readEasyMetadata();
+        }
+        catch (final ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated or corrupt easymetadata at byte " + decoder.position, e);
+        }
+        catch (final IllegalArgumentException e) {
+            // unknown enum constants
+            throw new IOException("Corrupt easymetadata at byte " + decoder.position, e);
+        }
+        catch (final URISyntaxException e) {
+            throw new IOException("Corrupt easymetadata at byte " + decoder.position, e);
+        }
+        return emd;
+    }
+
+    /**
+     * Decode easymetadata from the given stream. The stream is read to its end, but not closed.
+     * 
+     * @param in
+     *        the stream to read from
+     * @return the easymetadata
+     * @throws IOException
+     *         if the stream throws it, or does not hold encoded easymetadata of a supported version
+     */
+    public EasyMetadata decode(final InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+        int count = 0;
+        int read = in.read(buffer, 0, buffer.length);
+        while (read != -1) {
+            count += read;
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            read = in.read(buffer, count, buffer.length - count);
+        }
+        return decode(buffer, 0, count);
+    }
+
+    private static final class Encoder implements EmdItemVisitor {
+
+        private byte[] bytes = new byte[1024];
+        private int count;
+        private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, count);
+        }
+
+        void writeEasyMetadata(final EasyMetadata emd) {
+            ensure(MAGIC.length);
+            System.arraycopy(MAGIC, 0, bytes, count, MAGIC.length);
+            count += MAGIC.length;
+            writeVarint(VERSION);
+            writeVarint(FINGERPRINT);
+            writeString(emd.getVersion());
+            for (MDContainer mdContainer : MD_CONTAINERS) {
+                final EmdContainer container = emd.getContainer(mdContainer, true);
+                if (container != null) {
+                    writeVarint(mdContainer.ordinal() + 1);
+                    writeContainer(mdContainer, container);
+                }
+            }
+            writeVarint(NO_CONTAINER);
+        }
+
+        private void writeContainer(final MDContainer mdContainer, final EmdContainer container) {
+            writeVarint(countNonEmptyTerms(container));
+            container.accept(this);
+            if (MDContainer.Other.equals(mdContainer)) {
+                writeOther((EmdOther) container);
+            }
+        }
+
+        private int countNonEmptyTerms(final EmdContainer container) {
+            final int[] terms = {0};
+            container.accept(new EmdItemVisitor() {
+
+                public boolean startContainer(final MDContainer mdContainer, final EmdContainer emdContainer) {
+                    return true;
+                }
+
+                public boolean term(final Term term, final List<? extends MetadataItem> items) {
+                    terms[0]++;
+                    return true;
+                }
+
+                public boolean item(final Term term, final MetadataItem item) {
+                    return true;
+                }
+            });
+            return terms[0];
+        }
+
+        /** {@inheritDoc} */
+        public boolean startContainer(final MDContainer mdContainer, final EmdContainer container) {
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public boolean term(final Term term, final List<? extends MetadataItem> items) {
+            writeVarint(term.ordinal());
+            writeVarint(items.size());
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public boolean item(final Term term, final MetadataItem item) {
+            writeItem(item);
+            return true;
+        }
+
+        private void writeOther(final EmdOther other) {
+            final ApplicationSpecific applicationSpecific = other.getEasApplicationSpecific();
+            if (applicationSpecific == null) {
+                writeBoolean(false);
+            } else {
+                writeBoolean(true);
+                writeEnum(applicationSpecific.getMetadataFormat());
+                writeEnum(applicationSpecific.getPakbonStatus());
+            }
+            final List<PropertyList> propertyLists = other.getPropertyListCollection();
+            writeVarint(propertyLists.size());
+            for (PropertyList propertyList : propertyLists) {
+                writeString(propertyList.getComment());
+                writeVarint(propertyList.getProperties().size());
+                for (PropertyList.Property property : propertyList.getProperties()) {
+                    writeName(property.getKey());
+                    writeString(property.getValue());
+                }
+            }
+        }
+
+        private void writeItem(final MetadataItem item) {
+            // subclasses before their super classes
+            if (item == null) {
+                writeVarint(NULL);
+            } else if (item instanceof BasicIdentifier) {
+                writeVarint(BASIC_IDENTIFIER);
+                writeBasicString((BasicString) item);
+                writeName(toString(((BasicIdentifier) item).getIdentificationSystem()));
+            } else if (item instanceof BasicRemark) {
+                writeVarint(BASIC_REMARK);
+                writeBasicString((BasicString) item);
+                writeName(((BasicRemark) item).getAuthor());
+            } else if (item instanceof BasicString) {
+                writeVarint(BASIC_STRING);
+                writeBasicString((BasicString) item);
+            } else if (item instanceof BasicDate) {
+                writeVarint(BASIC_DATE);
+                writeBasicDate((BasicDate) item);
+            } else if (item instanceof IsoDate) {
+                writeVarint(ISO_DATE);
+                writeIsoDate((IsoDate) item);
+            } else if (item instanceof Author) {
+                writeVarint(AUTHOR);
+                writeAuthor((Author) item);
+            } else if (item instanceof Relation) {
+                writeVarint(RELATION);
+                writeRelation((Relation) item);
+            } else if (item instanceof Spatial) {
+                writeVarint(SPATIAL);
+                writeSpatial((Spatial) item);
+            } else {
+                throw new IllegalArgumentException("Cannot encode " + item.getClass().getName());
+            }
+        }
+
+        private void writeBasicString(final BasicString item) {
+            writeString(item.getValue());
+            writeName(item.getLanguage());
+            writeName(item.getScheme());
+            writeName(item.getSchemeId());
+        }
+
+        private void writeBasicDate(final BasicDate item) {
+            writeString(item.getValue());
+            writeName(item.getLanguage());
+            writeEnum(item.getScheme());
+            writeName(item.getSchemeId());
+        }
+
+        private void writeIsoDate(final IsoDate item) {
+            final DateTime dateTime = item.getValue();
+            if (dateTime == null) {
+                writeName(null);
+            } else {
+                writeName(dateTime.getZone().getID());
+                writeVarlong(dateTime.getMillis());
+            }
+            writeEnum(item.getFormat());
+            writeName(item.getSchemeId());
+        }
+
+        private void writeAuthor(final Author item) {
+            writeString((String) BeanFields.get(BeanFields.AUTHOR_TITLE, item));
+            writeString((String) BeanFields.get(BeanFields.AUTHOR_INITIALS, item));
+            writeString((String) BeanFields.get(BeanFields.AUTHOR_PREFIX, item));
+            writeString((String) BeanFields.get(BeanFields.AUTHOR_SURNAME, item));
+            writeName(item.getOrganization());
+            writeName(toString(item.getIdentificationSystem()));
+            writeString(item.getEntityId());
+            writeName(item.getScheme());
+        }
+
+        private void writeRelation(final Relation item) {
+            writeBoolean(item.hasEmphasis());
+            writeItem(item.getSubjectTitle());
+            writeItem(item.getSubjectIdentifier());
+            writeName(toString(item.getSubjectLink()));
+        }
+
+        private void writeSpatial(final Spatial item) {
+            writeItem(item.getPlace());
+            final Spatial.Point point = item.getPoint();
+            if (point == null) {
+                writeBoolean(false);
+            } else {
+                writeBoolean(true);
+                writeName(point.getScheme());
+                writeName(point.getSchemeId());
+                writeString(point.getX());
+                writeString(point.getY());
+            }
+            final Spatial.Box box = item.getBox();
+            if (box == null) {
+                writeBoolean(false);
+            } else {
+                writeBoolean(true);
+                writeName(box.getScheme());
+                writeName(box.getSchemeId());
+                writeString(box.getNorth());
+                writeString(box.getEast());
+                writeString(box.getSouth());
+                writeString(box.getWest());
+            }
+        }
+
+        private static String toString(final URI uri) {
+            return uri == null ? null : uri.toString();
+        }
+
+        private void writeEnum(final Enum<?> constant) {
+            writeName(constant == null ? null : constant.name());
+        }
+
+        // Repetitive strings: 0 for null, 1 followed by the string for a new one, index + 2 for one written before.
+        private void writeName(final String name) {
+            if (name == null) {
+                writeVarint(0);
+            } else {
+                final Integer index = dictionary.get(name);
+                if (index == null) {
+                    dictionary.put(name, dictionary.size());
+                    writeVarint(1);
+                    writeUtf8(name);
+                } else {
+                    writeVarint(index + 2);
+                }
+            }
+        }
+
+        // Other strings: 0 for null, otherwise the string.
+        private void writeString(final String string) {
+            if (string == null) {
+                writeVarint(0);
+            } else {
+                writeVarint(1);
+                writeUtf8(string);
+            }
+        }
+
+        private void writeUtf8(final String string) {
+            byte[] utf8;
+            try {
+                utf8 = string.getBytes(UTF_8);
+            }
+            catch (final UnsupportedEncodingException e) {
+                // every JVM supports UTF-8
+                throw new RuntimeException(e);
+            }
+            writeVarint(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, count, utf8.length);
+            count += utf8.length;
+        }
+
+        private void writeBoolean(final boolean value) {
+            writeVarint(value ? 1 : 0);
+        }
+
+        private void writeVarint(final int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        // Zigzag, so small negative values are short too.
+        private void writeVarlong(final long value) {
+            long rest = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((rest & ~0x7FL) != 0) {
+                bytes[count++] = (byte) ((rest & 0x7F) | 0x80);
+                rest >>>= 7;
+            }
+            bytes[count++] = (byte) rest;
+        }
+
+        private void ensure(final int length) {
+            if (count + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + length));
+            }
+        }
+    }
+
+    private static final class Decoder {
+
+        private final byte[] bytes;
+        private final int end;
+        private int position;
+        private final List<String> dictionary = new ArrayList<String>();
+
+        Decoder(final byte[] bytes, final int offset, final int end) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.end = end;
+        }
+
+        EasyMetadata readEasyMetadata() throws IOException, URISyntaxException {
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (position >= end || bytes[position++] != MAGIC[i]) {
+                    throw new IOException("Not encoded easymetadata");
+                }
+            }
+            final int version = readVarint();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            if (readVarint() != FINGERPRINT) {
+                throw new IOException("Encoded with other containers or terms");
+            }
+            final EasyMetadataImpl emd = BeanFields.newEasyMetadata();
+            emd.setVersion(readString());
+            int mdContainer = readVarint();
+            while (mdContainer != NO_CONTAINER) {
+                readContainer(MD_CONTAINERS[mdContainer - 1], emd.getContainer(MD_CONTAINERS[mdContainer - 1], false));
+                mdContainer = readVarint();
+            }
+            if (position != end) {
+                throw new IOException("Unexpected bytes after easymetadata at byte " + position);
+            }
+            return emd;
+        }
+
+        private void readContainer(final MDContainer mdContainer, final EmdContainer container) throws IOException, URISyntaxException {
+            // like the unmarshallers, instantiate the lists of all terms
+            for (Term term : container.getTerms()) {
+                container.get(term);
+            }
+            final int terms = readVarint();
+            for (int t = 0; t < terms; t++) {
+                final Term term = Term.of(readVarint());
+                final List<MetadataItem> list = container.get(term);
+                final int size = readVarint();
+                for (int i = 0; i < size; i++) {
+                    list.add(readItem());
+                }
+            }
+            if (MDContainer.Other.equals(mdContainer)) {
+                readOther((EmdOther) container);
+            }
+        }
+
+        private void readOther(final EmdOther other) {
+            ApplicationSpecific applicationSpecific = null;
+            if (readBoolean()) {
+                applicationSpecific = new ApplicationSpecific();
+                final String metadataFormat = readName();
+                final String pakbonStatus = readName();
+                applicationSpecific.setMetadataFormat(metadataFormat == null ? null : ApplicationSpecific.MetadataFormat.valueOf(metadataFormat));
+                applicationSpecific.setPakbonStatus(pakbonStatus == null ? null : ApplicationSpecific.PakbonStatus.valueOf(pakbonStatus));
+            }
+            other.setEasApplicationSpecific(applicationSpecific);
+            final List<PropertyList> propertyLists = other.getPropertyListCollection();
+            propertyLists.clear();
+            final int lists = readVarint();
+            for (int l = 0; l < lists; l++) {
+                final PropertyList propertyList = new PropertyList();
+                propertyList.setComment(readString());
+                final int properties = readVarint();
+                for (int p = 0; p < properties; p++) {
+                    final String key = readName();
+                    propertyList.addProperty(key, readString());
+                }
+                propertyLists.add(propertyList);
+            }
+        }
+
+        private MetadataItem readItem() throws IOException, URISyntaxException {
+            MetadataItem item;
+            final int tag = readVarint();
+            switch (tag) {
+            case NULL:
+                item = null;
+                break;
+            case BASIC_STRING:
+                item = readBasicString(new BasicString());
+                break;
+            case BASIC_IDENTIFIER:
+                final BasicIdentifier identifier = readBasicString(new BasicIdentifier());
+                identifier.setIdentificationSystem(toURI(readName()));
+                item = identifier;
+                break;
+            case BASIC_REMARK:
+                final BasicRemark remark = readBasicString(new BasicRemark());
+                remark.setAuthor(readName());
+                item = remark;
+                break;
+            case BASIC_DATE:
+                item = readBasicDate();
+                break;
+            case ISO_DATE:
+                item = readIsoDate();
+                break;
+            case AUTHOR:
+                item = readAuthor();
+                break;
+            case RELATION:
+                item = readRelation();
+                break;
+            case SPATIAL:
+                item = readSpatial();
+                break;
+            default:
+                throw new IOException("Unknown item tag " + tag + " at byte " + position);
+            }
+            return item;
+        }
+
+        private <T extends BasicString> T readBasicString(final T item) {
+            item.setValue(readString());
+            BeanFields.set(BeanFields.LANGUAGE, item, readName());
+            item.setScheme(readName());
+            item.setSchemeId(readName());
+            return item;
+        }
+
+        private BasicDate readBasicDate() {
+            final BasicDate date = new BasicDate();
+            // setValue derives the date time and may set the scheme, which is then overwritten with the encoded one
+            date.setValue(readString());
+            BeanFields.set(BeanFields.LANGUAGE, date, readName());
+            final String scheme = readName();
+            BeanFields.set(BeanFields.DATE_SCHEME, date, scheme == null ? null : EmdConstants.DateScheme.valueOf(scheme));
+            date.setSchemeId(readName());
+            return date;
+        }
+
+        private IsoDate readIsoDate() {
+            final String zone = readName();
+            final IsoDate date = new IsoDate(zone == null ? null : new DateTime(readVarlong(), DateTimeZone.forID(zone)));
+            final String format = readName();
+            date.setFormat(format == null ? null : IsoDate.Format.valueOf(format));
+            date.setSchemeId(readName());
+            return date;
+        }
+
+        private Author readAuthor() throws URISyntaxException {
+            final Author author = new Author();
+            BeanFields.set(BeanFields.AUTHOR_TITLE, author, readString());
+            BeanFields.set(BeanFields.AUTHOR_INITIALS, author, readString());
+            BeanFields.set(BeanFields.AUTHOR_PREFIX, author, readString());
+            BeanFields.set(BeanFields.AUTHOR_SURNAME, author, readString());
+            author.setOrganization(readName());
+            author.setIdentificationSystem(toURI(readName()));
+            final String entityId = readString();
+            author.setEntityId(entityId, readName());
+            return author;
+        }
+
+        private Relation readRelation() throws IOException, URISyntaxException {
+            final Relation relation = new Relation();
+            relation.setEmphasis(readBoolean());
+            relation.setSubjectTitle((BasicString) readItem());
+            relation.setSubjectIdentifier((BasicIdentifier) readItem());
+            relation.setSubjectLink(toURI(readName()));
+            return relation;
+        }
+
+        private Spatial readSpatial() throws IOException, URISyntaxException {
+            final Spatial spatial = new Spatial();
+            spatial.setPlace((BasicString) readItem());
+            if (readBoolean()) {
+                final String scheme = readName();
+                final String schemeId = readName();
+                final String x = readString();
+                final Spatial.Point point = new Spatial.Point(scheme, x, readString());
+                point.setSchemeId(schemeId);
+                BeanFields.set(BeanFields.SPATIAL_POINT, spatial, point);
+            }
+            if (readBoolean()) {
+                final String scheme = readName();
+                final String schemeId = readName();
+                final String north = readString();
+                final String east = readString();
+                final String south = readString();
+                final Spatial.Box box = new Spatial.Box(scheme, north, east, south, readString());
+                box.setSchemeId(schemeId);
+                BeanFields.set(BeanFields.SPATIAL_BOX, spatial, box);
+            }
+            return spatial;
+        }
+
+        private static URI toURI(final String value) throws URISyntaxException {
+            return value == null ? null : new URI(value);
+        }
+
+        private String readName() {
+            String name = null;
+            final int code = readVarint();
+            if (code == 1) {
+                name = readUtf8();
+                dictionary.add(name);
+            } else if (code > 1) {
+                name = dictionary.get(code - 2);
+            }
+            return name;
+        }
+
+        private String readString() {
+            return readVarint() == 0 ? null : readUtf8();
+        }
+
+        private String readUtf8() {
+            final int length = readVarint();
+            if (length < 0 || position + length > end) {
+                throw new ArrayIndexOutOfBoundsException(position + length);
+            }
+            String string;
+            try {
+                string = new String(bytes, position, length, UTF_8);
+            }
+            catch (final UnsupportedEncodingException e) {
+                // every JVM supports UTF-8
+                throw new RuntimeException(e);
+            }
+            position += length;
+            return string;
+        }
+
+        private boolean readBoolean() {
+            return readVarint() != 0;
+        }
+
+        private int readVarint() {
+            return (int) readVarlong();
+        }
+
+        private long readVarlong() {
+            long raw = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position >= end) {
+                    throw new ArrayIndexOutOfBoundsException(position);
+                }
+                b = bytes[position++];
+                raw |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && shift < 64);
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+    }
+
+}
@@ -0,0 +1,379 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdBean;
+import nl.knaw.dans.pf.language.emd.util.ByteBufferInputStream;
+import nl.knaw.dans.pf.language.emd.util.ByteBufferOutputStream;
+import nl.knaw.dans.pf.language.xml.exc.XMLDeserializationException;
+import nl.knaw.dans.pf.language.xml.exc.XMLSerializationException;
+
+import org.jibx.runtime.BindingDirectory;
+import org.jibx.runtime.IBindingFactory;
+import org.jibx.runtime.IMarshallable;
+import org.jibx.runtime.IMarshallingContext;
+import org.jibx.runtime.IUnmarshallingContext;
+import org.jibx.runtime.JiBXException;
+
+/**
+ * Reusable marshaller and unmarshaller for easymetadata and its containers. Where {@link EmdMarshaller} and {@link EmdUnmarshaller} create a new JiBX context
+ * for every bean, an engine looks up the binding factory once and keeps a marshalling context, an unmarshalling context and an output buffer per thread.
+ * Contexts are reset after each call, so they do not hold on to beans or streams.
+ * <p/>
+ * An engine is immutable and can be shared between threads. {@link #instance()} writes UTF-8 with an xml declaration of a standalone document, like a
+ * new {@link EmdMarshaller}.
+ * 
+ * @see EmdMarshaller
+ * @see EmdUnmarshaller
+ */
+public class EmdBindingEngine {
+
+    /**
+     * The default encoding.
+     */
+    public static final String DEFAULT_ENCODING = "UTF-8";
+
+    /**
+     * The default indentation.
+     */
+    public static final int DEFAULT_INDENT = 4;
+
+    // Buffers that grew larger are not kept for the next document.
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final EmdBindingEngine INSTANCE = new EmdBindingEngine();
+
+    private static volatile IBindingFactory bindingFactory;
+
+    private final String encoding;
+    private final boolean standalone;
+    private final boolean omitXmlDeclaration;
+    private final int indent;
+
+    private final ThreadLocal<Contexts> contexts = new ThreadLocal<Contexts>();
+
+    /**
+     * Constructs an engine that writes UTF-8 with an xml declaration of a standalone document.
+     */
+    public EmdBindingEngine() {
+        this(DEFAULT_ENCODING, true, false, DEFAULT_INDENT);
+    }
+
+    /**
+     * Constructs an engine with the given output settings.
+     * 
+     * @param encoding
+     *        encoding of the output
+     * @param standalone
+     *        value of the standalone attribute in the xml declaration
+     * @param omitXmlDeclaration
+     *        <code>true</code> if the xml declaration should be left out, <code>false</code> otherwise
+     * @param indent
+     *        number of spaces to indent nested elements with, or -1 for no line breaks
+     */
+    public EmdBindingEngine(final String encoding, final boolean standalone, final boolean omitXmlDeclaration, final int indent) {
+        this.encoding = encoding;
+        this.standalone = standalone;
+        this.omitXmlDeclaration = omitXmlDeclaration;
+        this.indent = indent;
+    }
+
+    /**
+     * Get the engine with default settings.
+     * 
+     * @return the shared engine with default settings
+     */
+    public static EmdBindingEngine instance() {
+        return INSTANCE;
+    }
+
+    private static IBindingFactory getBindingFactory() throws JiBXException {
+        // BindingDirectory always returns the same factory, so a race here is harmless
+        if (bindingFactory == null) {
+            bindingFactory = BindingDirectory.getFactory(EmdMarshaller.BINDING_NAME, EasyMetadataImpl.class);
+        }
+        return bindingFactory;
+    }
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    public boolean getStandalone() {
+        return standalone;
+    }
+
+    public boolean getOmitXmlDeclaration() {
+        return omitXmlDeclaration;
+    }
+
+    public int getIndent() {
+        return indent;
+    }
+
+    /**
+     * Marshal the given bean to the given stream. The stream is flushed, but not closed.
+     * 
+     * @param bean
+     *        easymetadata or one of its containers
+     * @param out
+     *        the stream to write to
+     * @throws XMLSerializationException
+     *         if the bean could not be marshalled
+     */
+    public void marshal(final EmdBean bean, final OutputStream out) throws XMLSerializationException {
+        final Contexts ctx = acquire();
+        try {
+            marshal(ctx, bean, out);
+        }
+        finally {
+            release(ctx);
+        }
+    }
+
+    /**
+     * Marshal the given bean to the given channel. The document is written as it is marshalled; the channel is not closed.
+     * 
+     * @param bean
+     *        easymetadata or one of its containers
+     * @param channel
+     *        the channel to write to
+     * @throws XMLSerializationException
+     *         if the bean could not be marshalled
+     */
+    public void marshal(final EmdBean bean, final WritableByteChannel channel) throws XMLSerializationException {
+        marshal(bean, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Marshal the given bean to the given buffer, so that the buffer can be reused for the next document. The buffer is cleared first. If it is too small, a
+     * larger buffer of the same kind is allocated and returned instead.
+     * 
+     * @param bean
+     *        easymetadata or one of its containers
+     * @param buffer
+     *        the buffer to write to
+     * @return the buffer with the document, flipped for reading
+     * @throws XMLSerializationException
+     *         if the bean could not be marshalled
+     */
+    public ByteBuffer marshal(final EmdBean bean, final ByteBuffer buffer) throws XMLSerializationException {
+        buffer.clear();
+        final ByteBufferOutputStream out = new ByteBufferOutputStream(buffer);
+        marshal(bean, out);
+        final ByteBuffer result = out.getBuffer();
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Marshal the given bean to a byte array of the exact size of the document.
+     * 
+     * @param bean
+     *        easymetadata or one of its containers
+     * @return the document
+     * @throws XMLSerializationException
+     *         if the bean could not be marshalled
+     */
+    public byte[] marshal(final EmdBean bean) throws XMLSerializationException {
+        final Contexts ctx = acquire();
+        final Buffer buffer = ctx.getBuffer();
+        byte[] bytes;
+        try {
+            marshal(ctx, bean, buffer);
+            bytes = buffer.toByteArray();
+        }
+        finally {
+            buffer.release();
+            release(ctx);
+        }
+        return bytes;
+    }
+
+    private void marshal(final Contexts ctx, final EmdBean bean, final OutputStream out) throws XMLSerializationException {
+        try {
+            final IMarshallingContext mctx = ctx.getMarshallingContext();
+            mctx.setIndent(indent);
+            if (omitXmlDeclaration) {
+                mctx.setOutput(out, encoding);
+                mctx.startDocument(null, null);
+            } else {
+                mctx.startDocument(encoding, Boolean.valueOf(standalone), out);
+            }
+            ((IMarshallable) bean).marshal(mctx);
+            mctx.endDocument();
+        }
+        catch (final JiBXException e) {
+            throw new XMLSerializationException(e);
+        }
+        catch (final ClassCastException e) {
+            throw new XMLSerializationException("Not a bound class: " + bean.getClass().getName(), e);
+        }
+        finally {
+            if (ctx.marshallingContext != null) {
+                ctx.marshallingContext.reset();
+            }
+        }
+    }
+
+    /**
+     * Unmarshal easymetadata from the given stream. The stream is not closed.
+     * 
+     * @param in
+     *        the stream to read from
+     * @return the easymetadata
+     * @throws XMLDeserializationException
+     *         if the stream could not be unmarshalled to easymetadata
+     */
+    public EasyMetadata unmarshal(final InputStream in) throws XMLDeserializationException {
+        return unmarshal(in, EasyMetadataImpl.class);
+    }
+
+    /**
+     * Unmarshal easymetadata from the given bytes.
+     * 
+     * @param bytes
+     *        the document
+     * @return the easymetadata
+     * @throws XMLDeserializationException
+     *         if the bytes could not be unmarshalled to easymetadata
+     */
+    public EasyMetadata unmarshal(final byte[] bytes) throws XMLDeserializationException {
+        return unmarshal(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Unmarshal easymetadata from the remaining bytes of the given buffer. The position of the buffer is advanced past the bytes read.
+     * 
+     * @param buffer
+     *        the document
+     * @return the easymetadata
+     * @throws XMLDeserializationException
+     *         if the bytes could not be unmarshalled to easymetadata
+     */
+    public EasyMetadata unmarshal(final ByteBuffer buffer) throws XMLDeserializationException {
+        return unmarshal(new ByteBufferInputStream(buffer));
+    }
+
+    /**
+     * Unmarshal a bean of the given class from the given stream. The stream is not closed.
+     * 
+     * @param <T>
+     *        the type of the bean
+     * @param in
+     *        the stream to read from
+     * @param beanClass
+     *        the class of the root element
+     * @return the bean
+     * @throws XMLDeserializationException
+     *         if the stream could not be unmarshalled to a bean of the given class
+     */
+    public <T extends EmdBean> T unmarshal(final InputStream in, final Class<T> beanClass) throws XMLDeserializationException {
+        final Contexts ctx = acquire();
+        Object bean;
+        try {
+            bean = ctx.getUnmarshallingContext().unmarshalDocument(in, null);
+        }
+        catch (final JiBXException e) {
+            throw new XMLDeserializationException(e);
+        }
+        finally {
+            if (ctx.unmarshallingContext != null) {
+                ctx.unmarshallingContext.reset();
+            }
+            release(ctx);
+        }
+        if (!beanClass.isInstance(bean)) {
+            throw new XMLDeserializationException("Expected " + beanClass.getName() + ", but got " + (bean == null ? null : bean.getClass().getName()));
+        }
+        return beanClass.cast(bean);
+    }
+
+    // A thread may come back here while its contexts are in use, e.g. when a bean marshals or unmarshals another document.
+    // The nested call then gets fresh contexts that are not kept.
+    private Contexts acquire() {
+        Contexts ctx = contexts.get();
+        if (ctx == null) {
+            ctx = new Contexts();
+            contexts.set(ctx);
+        }
+        if (ctx.inUse) {
+            ctx = new Contexts();
+        }
+        ctx.inUse = true;
+        return ctx;
+    }
+
+    private static void release(final Contexts ctx) {
+        ctx.inUse = false;
+    }
+
+    private static class Contexts {
+
+        private boolean inUse;
+        private IMarshallingContext marshallingContext;
+        private IUnmarshallingContext unmarshallingContext;
+        private Buffer buffer;
+
+        IMarshallingContext getMarshallingContext() throws JiBXException {
+            if (marshallingContext == null) {
+                marshallingContext = getBindingFactory().createMarshallingContext();
+            }
+            return marshallingContext;
+        }
+
+        IUnmarshallingContext getUnmarshallingContext() throws JiBXException {
+            if (unmarshallingContext == null) {
+                unmarshallingContext = getBindingFactory().createUnmarshallingContext();
+            }
+            return unmarshallingContext;
+        }
+
+        Buffer getBuffer() {
+            if (buffer == null) {
+                buffer = new Buffer();
+            }
+            return buffer;
+        }
+
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+
+        Buffer() {
+            super(8 * 1024);
+        }
+
+        void release() {
+            reset();
+            if (buf.length > MAX_RETAINED_BUFFER_SIZE) {
+                buf = new byte[8 * 1024];
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import nl.knaw.dans.pf.language.emd.MDContainer;
+
+/**
+ * The order of the container elements of easymetadata, as in <code>src/main/config/easymetadata-binding.xml</code> and emd.xsd. It differs from the order of
+ * {@link MDContainer}: <code>emd:source</code> and <code>emd:language</code> come before <code>emd:relation</code>. Everything that writes or strictly reads
+ * easymetadata as xml takes the order of the containers from here. The terms of a container are in binding order in {@link
+ * nl.knaw.dans.pf.language.emd.EmdContainer#getTerms()}.
+ */
+public final class EmdBindingOrder {
+
+    // @formatter:off
+    private static final MDContainer[] CONTAINERS = {
+        MDContainer.Title,
+        MDContainer.Creator,
+        MDContainer.Subject,
+        MDContainer.Description,
+        MDContainer.Publisher,
+        MDContainer.Contributor,
+        MDContainer.Date,
+        MDContainer.Type,
+        MDContainer.Format,
+        MDContainer.Identifier,
+        MDContainer.Source,
+        MDContainer.Language,
+        MDContainer.Relation,
+        MDContainer.Coverage,
+        MDContainer.Rights,
+        MDContainer.Audience,
+        MDContainer.Other
+    };
+    // @formatter:on
+
+    private static final List<MDContainer> CONTAINER_LIST = Collections.unmodifiableList(Arrays.asList(CONTAINERS));
+
+    // Position in binding order by MDContainer ordinal.
+    private static final int[] POSITIONS = new int[CONTAINERS.length];
+
+    static {
+        for (int position = 0; position < CONTAINERS.length; position++) {
+            POSITIONS[CONTAINERS[position].ordinal()] = position;
+        }
+    }
+
+    private EmdBindingOrder() {
+        // never instantiate
+    }
+
+    /**
+     * Get the containers in binding order.
+     * 
+     * @return unmodifiable list of all containers in binding order
+     */
+    public static List<MDContainer> containers() {
+        return CONTAINER_LIST;
+    }
+
+    /**
+     * Get the position of the given container in binding order.
+     * 
+     * @param mdContainer
+     *        the container
+     * @return the index of the container in {@link #containers()}
+     */
+    public static int position(final MDContainer mdContainer) {
+        return POSITIONS[mdContainer.ordinal()];
+    }
+
+}
@@ -0,0 +1,500 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EmdContainer;
+import nl.knaw.dans.pf.language.emd.EmdItemVisitor;
+import nl.knaw.dans.pf.language.emd.EmdOther;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.PropertyList;
+import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific;
+import nl.knaw.dans.pf.language.emd.types.Author;
+import nl.knaw.dans.pf.language.emd.types.BasicDate;
+import nl.knaw.dans.pf.language.emd.types.BasicIdentifier;
+import nl.knaw.dans.pf.language.emd.types.BasicRemark;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.IsoDate;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
+import nl.knaw.dans.pf.language.emd.types.Relation;
+import nl.knaw.dans.pf.language.emd.types.Spatial;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+
+/**
+ * Writes easymetadata as canonical xml: logically equal easymetadata is written to equal bytes, so the output can be hashed to detect unchanged records or
+ * used as key in content-addressed storage. The output follows the bindings in <code>src/main/config/*-binding.xml</code> and can be read by the
+ * unmarshallers, with the following rules:
+ * <ul>
+ * <li>the output is UTF-8 with a fixed xml declaration, without indentation;</li>
+ * <li>all namespaces are declared on the root element, in a fixed order and with fixed prefixes;</li>
+ * <li>containers are written in {@link EmdBindingOrder binding order} and terms in the order of the bindings; items keep the order of their lists;</li>
+ * <li>attributes are written in a fixed order;</li>
+ * <li>null items and elements without attributes, text or children are omitted, and with them empty terms and containers;</li>
+ * <li>text is trimmed and line breaks are normalized to <code>\n</code>; attribute values are trimmed and their white space is collapsed to single
+ * spaces;</li>
+ * <li>dates of {@link IsoDate}, and values of {@link BasicDate} that are date-times with a time zone offset, are written in ISO 8601 in UTC, so equal
+ * instants are written equally, whatever their time zone or the time zone of the machine;</li>
+ * <li>a <code>false</code> emphasis of {@link Relation} is not written.</li>
+ * </ul>
+ * Instances are stateless and can be shared between threads.
+ */
+public class EmdCanonicalWriter {
+
+    private static final String UTF_8 = "UTF-8";
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+
+    private static final String ROOT = "emd:easymetadata";
+
+    // Namespace declarations of the root element.
+    private static final String NAMESPACES = " xmlns:emd=\"" + EmdStaxUnmarshaller.EMD_NAMESPACE + "\" xmlns:dc=\"" + Term.Namespace.DC.uri
+            + "\" xmlns:dct=\"" + Term.Namespace.DCTERMS.uri + "\" xmlns:eas=\"" + Term.Namespace.EAS.uri + "\"";
+
+    // Prefixes of the bindings, by Term.Namespace ordinal.
+    private static final String[] PREFIXES = new String[Term.Namespace.values().length];
+
+    private static final DateTimeFormatter UTC_FORMATTER = ISODateTimeFormat.dateTime().withZone(DateTimeZone.UTC);
+
+    // A W3CDTF value with a time and a time zone designator.
+    private static final Pattern ZONED_DATE_TIME = Pattern.compile(".*T.*(Z|[+-]\\d{2}:\\d{2})");
+
+    // Qualified element names by Term ordinal.
+    private static final String[] ELEMENT_NAMES = new String[Term.ORDINAL_COUNT];
+
+    static {
+        PREFIXES[Term.Namespace.DC.ordinal()] = "dc";
+        PREFIXES[Term.Namespace.DCTERMS.ordinal()] = "dct";
+        PREFIXES[Term.Namespace.EAS.ordinal()] = "eas";
+        for (Term.Name name : Term.Name.values()) {
+            for (Term.Namespace namespace : Term.Namespace.values()) {
+                final String localName = Term.Name.REMARKS.equals(name) ? "remark" : name.termName;
+                ELEMENT_NAMES[Term.of(name, namespace).ordinal()] = PREFIXES[namespace.ordinal()] + ":" + localName;
+            }
+        }
+    }
+
+    /**
+     * Write the given easymetadata as canonical xml.
+     * 
+     * @param emd
+     *        the easymetadata to write
+     * @return the canonical xml, UTF-8 encoded
+     */
+    public byte[] write(final EasyMetadata emd) {
+        return toBytes(toXml(emd));
+    }
+
+    /**
+     * Write the given easymetadata as canonical xml to the given stream. The stream is not closed.
+     * 
+     * @param emd
+     *        the easymetadata to write
+     * @param out
+     *        the stream to write to
+     * @throws IOException
+     *         if the stream throws it
+     */
+    public void write(final EasyMetadata emd, final OutputStream out) throws IOException {
+        out.write(write(emd));
+    }
+
+    /**
+     * Get the canonical xml of the given easymetadata.
+     * 
+     * @param emd
+     *        the easymetadata to write
+     * @return the canonical xml
+     */
+    public String toXml(final EasyMetadata emd) {
+        final Writer writer = new Writer();
+        writer.writeEasyMetadata(emd);
+        return writer.xml.toString();
+    }
+
+    /**
+     * Get the digest of the canonical xml of the given easymetadata.
+     * 
+     * @param emd
+     *        the easymetadata to digest
+     * @param algorithm
+     *        the digest algorithm, for instance <code>SHA-256</code>
+     * @return the digest
+     * @throws NoSuchAlgorithmException
+     *         if the algorithm is not available
+     */
+    public byte[] digest(final EasyMetadata emd, final String algorithm) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance(algorithm).digest(write(emd));
+    }
+
+    private static byte[] toBytes(final String xml) {
+        try {
+            return xml.getBytes(UTF_8);
+        }
+        catch (final UnsupportedEncodingException e) {
+            // every JVM supports UTF-8
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final class Writer implements EmdItemVisitor {
+
+        private static final int MAX_DEPTH = 8;
+
+        private final StringBuilder xml = new StringBuilder(4096);
+
+        // Whether the start tag of the current element is not closed yet.
+        private boolean startTagOpen;
+
+        private int depth;
+
+        // Per open element: its qualified name, where its start tag begins, and where to cut the output if it is omitted.
+        private final String[] names = new String[MAX_DEPTH];
+        private final int[] starts = new int[MAX_DEPTH];
+        private final int[] cuts = new int[MAX_DEPTH];
+        private final boolean[] parentTagOpen = new boolean[MAX_DEPTH];
+
+        void writeEasyMetadata(final EasyMetadata emd) {
+            xml.append(XML_DECLARATION);
+            xml.append('<').append(ROOT).append(NAMESPACES);
+            attribute("emd:version", emd.getVersion());
+            startTagOpen = true;
+            for (MDContainer mdContainer : EmdBindingOrder.containers()) {
+                final EmdContainer container = emd.getContainer(mdContainer, true);
+                if (container != null) {
+                    writeContainer(mdContainer, container);
+                }
+            }
+            if (startTagOpen) {
+                xml.append("/>");
+            } else {
+                xml.append("</").append(ROOT).append('>');
+            }
+        }
+
+        private void writeContainer(final MDContainer mdContainer, final EmdContainer container) {
+            start("emd:" + mdContainer.name().toLowerCase());
+            container.accept(this);
+            if (MDContainer.Other.equals(mdContainer)) {
+                writeOther((EmdOther) container);
+            }
+            end();
+        }
+
+        // EmdOther-binding.xml, ApplicationSpecific-binding.xml, propertyList-binding.xml
+        private void writeOther(final EmdOther other) {
+            final ApplicationSpecific applicationSpecific = other.getEasApplicationSpecific();
+            if (applicationSpecific != null) {
+                start("eas:application-specific");
+                element("eas:metadataformat", toString(applicationSpecific.getMetadataFormat()));
+                element("eas:pakbon-status", toString(applicationSpecific.getPakbonStatus()));
+                end();
+            }
+            final List<PropertyList> propertyLists = other.getPropertyListCollection();
+            // the binding requires eas:etc in a written emd:other
+            if (!propertyLists.isEmpty() || !isEmptyAt(depth - 1)) {
+                start("eas:etc");
+                for (PropertyList propertyList : propertyLists) {
+                    start("property-list");
+                    element("comment", propertyList.getComment());
+                    for (PropertyList.Property property : propertyList.getProperties()) {
+                        start("entry");
+                        attribute("key", property.getKey());
+                        text(property.getValue());
+                        end();
+                    }
+                    end();
+                }
+                endKeepEmpty();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public boolean startContainer(final MDContainer mdContainer, final EmdContainer container) {
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public boolean term(final Term term, final List<? extends MetadataItem> items) {
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public boolean item(final Term term, final MetadataItem item) {
+            if (item != null) {
+                writeItem(ELEMENT_NAMES[term.ordinal()], item);
+            }
+            return true;
+        }
+
+        private void writeItem(final String name, final MetadataItem item) {
+            start(name);
+            // subclasses before their super classes
+            if (item instanceof BasicIdentifier) {
+                writeBasicString((BasicString) item);
+                attribute("eas:identification-system", toString(((BasicIdentifier) item).getIdentificationSystem()));
+                text(((BasicString) item).getValue());
+            } else if (item instanceof BasicRemark) {
+                writeBasicString((BasicString) item);
+                attribute("eas:author", ((BasicRemark) item).getAuthor());
+                text(((BasicString) item).getValue());
+            } else if (item instanceof BasicString) {
+                writeBasicString((BasicString) item);
+                text(((BasicString) item).getValue());
+            } else if (item instanceof BasicDate) {
+                writeBasicDate((BasicDate) item);
+            } else if (item instanceof IsoDate) {
+                writeIsoDate((IsoDate) item);
+            } else if (item instanceof Author) {
+                writeAuthor((Author) item);
+            } else if (item instanceof Relation) {
+                writeRelation((Relation) item);
+            } else if (item instanceof Spatial) {
+                writeSpatial((Spatial) item);
+            } else {
+                throw new IllegalArgumentException("Cannot write " + item.getClass().getName());
+            }
+            end();
+        }
+
+        // LanguageTokenizedString-binding.xml, BasicString-binding.xml
+        private void writeBasicString(final BasicString item) {
+            attribute("xml:lang", item.getLanguage());
+            attribute("eas:scheme", item.getScheme());
+            attribute("eas:schemeId", item.getSchemeId());
+        }
+
+        // BasicDate-binding.xml
+        private void writeBasicDate(final BasicDate item) {
+            attribute("xml:lang", item.getLanguage());
+            attribute("eas:scheme", toString(item.getScheme()));
+            attribute("eas:schemeId", item.getSchemeId());
+            // dates without time, or without time zone, are not instants and are written as they are
+            final boolean zoned = item.getDateTime() != null && ZONED_DATE_TIME.matcher(item.getValue()).matches();
+            text(zoned ? toUtc(item.getDateTime()) : item.getValue());
+        }
+
+        // IsoDate-binding.xml
+        private void writeIsoDate(final IsoDate item) {
+            attribute("eas:scheme", toString(item.getScheme()));
+            attribute("eas:schemeId", item.getSchemeId());
+            attribute("eas:format", toString(item.getFormat()));
+            text(toUtc(item.getValue()));
+        }
+
+        // Author-binding.xml
+        private void writeAuthor(final Author item) {
+            element("eas:title", item.getTitle());
+            element("eas:initials", item.getInitials());
+            element("eas:prefix", item.getPrefix());
+            element("eas:surname", item.getSurname());
+            element("eas:organization", item.getOrganization());
+            start("eas:entityId");
+            attribute("eas:identification-system", toString(item.getIdentificationSystem()));
+            attribute("eas:scheme", item.getScheme());
+            text(item.getEntityId());
+            end();
+        }
+
+        // Relation-binding.xml
+        private void writeRelation(final Relation item) {
+            attribute("eas:emphasis", item.hasEmphasis() ? "true" : null);
+            if (item.getSubjectTitle() != null) {
+                writeItem("eas:subject-title", item.getSubjectTitle());
+            }
+            if (item.getSubjectIdentifier() != null) {
+                writeItem("eas:subject-identifier", item.getSubjectIdentifier());
+            }
+            element("eas:subject-link", toString(item.getSubjectLink()));
+        }
+
+        // Spatial-binding.xml
+        private void writeSpatial(final Spatial item) {
+            if (item.getPlace() != null) {
+                writeItem("eas:place", item.getPlace());
+            }
+            final Spatial.Point point = item.getPoint();
+            if (point != null) {
+                start("eas:point");
+                attribute("eas:scheme", point.getScheme());
+                attribute("eas:schemeId", point.getSchemeId());
+                element("eas:x", point.getX());
+                element("eas:y", point.getY());
+                end();
+            }
+            final Spatial.Box box = item.getBox();
+            if (box != null) {
+                start("eas:box");
+                attribute("eas:scheme", box.getScheme());
+                attribute("eas:schemeId", box.getSchemeId());
+                element("eas:north", box.getNorth());
+                element("eas:east", box.getEast());
+                element("eas:south", box.getSouth());
+                element("eas:west", box.getWest());
+                end();
+            }
+        }
+
+        private void element(final String name, final String text) {
+            start(name);
+            text(text);
+            end();
+        }
+
+        private void start(final String name) {
+            cuts[depth] = xml.length();
+            parentTagOpen[depth] = startTagOpen;
+            if (startTagOpen) {
+                xml.append('>');
+            }
+            names[depth] = name;
+            starts[depth] = xml.length();
+            depth++;
+            xml.append('<').append(name);
+            startTagOpen = true;
+        }
+
+        private void end() {
+            depth--;
+            if (isEmptyAt(depth)) {
+                xml.setLength(cuts[depth]);
+                startTagOpen = parentTagOpen[depth];
+            } else {
+                closeElement();
+            }
+        }
+
+        private void endKeepEmpty() {
+            depth--;
+            closeElement();
+        }
+
+        // Whether the element at the given depth has no attributes and no content yet.
+        private boolean isEmptyAt(final int index) {
+            return startTagOpen && xml.length() == starts[index] + 1 + names[index].length();
+        }
+
+        private void closeElement() {
+            if (startTagOpen) {
+                xml.append("/>");
+            } else {
+                xml.append("</").append(names[depth]).append('>');
+            }
+            startTagOpen = false;
+        }
+
+        private void attribute(final String name, final String value) {
+            final String normalized = normalizeAttribute(value);
+            if (normalized.length() > 0) {
+                xml.append(' ').append(name).append("=\"");
+                for (int i = 0; i < normalized.length(); i++) {
+                    final char c = normalized.charAt(i);
+                    if (c == '&') {
+                        xml.append("&amp;");
+                    } else if (c == '<') {
+                        xml.append("&lt;");
+                    } else if (c == '"') {
+                        xml.append("&quot;");
+                    } else {
+                        xml.append(c);
+                    }
+                }
+                xml.append('"');
+            }
+        }
+
+        private void text(final String value) {
+            final String normalized = normalizeText(value);
+            if (normalized.length() > 0) {
+                xml.append('>');
+                startTagOpen = false;
+                for (int i = 0; i < normalized.length(); i++) {
+                    final char c = normalized.charAt(i);
+                    if (c == '&') {
+                        xml.append("&amp;");
+                    } else if (c == '<') {
+                        xml.append("&lt;");
+                    } else if (c == '>') {
+                        xml.append("&gt;");
+                    } else {
+                        xml.append(c);
+                    }
+                }
+            }
+        }
+
+        private static String toString(final Enum<?> constant) {
+            return constant == null ? null : constant.name();
+        }
+
+        private static String toString(final URI uri) {
+            return uri == null ? null : uri.toString();
+        }
+
+        private static String toUtc(final DateTime dateTime) {
+            return dateTime == null ? null : UTC_FORMATTER.print(dateTime);
+        }
+    }
+
+    // Trims and normalizes line breaks to \n.
+    static String normalizeText(final String value) {
+        String normalized = "";
+        if (value != null) {
+            normalized = value.trim();
+            if (normalized.indexOf('\r') >= 0) {
+                normalized = normalized.replace("\r\n", "\n").replace('\r', '\n');
+            }
+        }
+        return normalized;
+    }
+
+    // Trims and collapses white space to single spaces.
+    static String normalizeAttribute(final String value) {
+        String normalized = "";
+        if (value != null) {
+            final StringBuilder sb = new StringBuilder(value.length());
+            boolean space = false;
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    space = sb.length() > 0;
+                } else {
+                    if (space) {
+                        sb.append(' ');
+                        space = false;
+                    }
+                    sb.append(c);
+                }
+            }
+            normalized = sb.toString();
+        }
+        return normalized;
+    }
+
+}
@@ -0,0 +1,477 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.sax.SAXSource;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EmdContainer;
+import nl.knaw.dans.pf.language.emd.EmdItemVisitor;
+import nl.knaw.dans.pf.language.emd.EmdOther;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.PropertyList;
+import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific;
+import nl.knaw.dans.pf.language.emd.types.Author;
+import nl.knaw.dans.pf.language.emd.types.BasicDate;
+import nl.knaw.dans.pf.language.emd.types.BasicIdentifier;
+import nl.knaw.dans.pf.language.emd.types.BasicRemark;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.IsoDate;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
+import nl.knaw.dans.pf.language.emd.types.Relation;
+import nl.knaw.dans.pf.language.emd.types.Spatial;
+import nl.knaw.dans.pf.language.emd.util.Converter;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Source of easymetadata as SAX events, without serializing it to text. It can be given to a {@link javax.xml.validation.Validator} or a
+ * {@link javax.xml.transform.Transformer}, like a JAXB source. The events follow the bindings in <code>src/main/config/*-binding.xml</code>, as the
+ * {@link EmdMarshaller} would write them:
+ * <ul>
+ * <li>containers are written in {@link EmdBindingOrder binding order} and terms in the order of the bindings;</li>
+ * <li>containers that are instantiated are written, also when empty; <code>eas:etc</code> is always written in <code>emd:other</code>;</li>
+ * <li>null items and absent optional values are not written;</li>
+ * <li>dates of {@link IsoDate} are written with {@link Converter#serializeDateTime(org.joda.time.DateTime)}.</li>
+ * </ul>
+ * The easymetadata is read when the source is parsed, every time it is parsed.
+ */
+public class EmdSAXSource extends SAXSource {
+
+    private static final String EMD = EmdStaxUnmarshaller.EMD_NAMESPACE;
+    private static final String EAS = Term.Namespace.EAS.uri;
+    private static final String NO_NAMESPACE = XMLConstants.NULL_NS_URI;
+
+    private static final String CDATA = "CDATA";
+
+    // Prefixes of the bindings, by Term.Namespace ordinal.
+    private static final String[] PREFIXES = new String[Term.Namespace.values().length];
+
+    static {
+        PREFIXES[Term.Namespace.DC.ordinal()] = "dc";
+        PREFIXES[Term.Namespace.DCTERMS.ordinal()] = "dct";
+        PREFIXES[Term.Namespace.EAS.ordinal()] = "eas";
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param emd
+     *        the easymetadata to read
+     */
+    public EmdSAXSource(final EasyMetadata emd) {
+        super(new Reader(emd, null), new InputSource());
+    }
+
+    /**
+     * Constructs a source of part of the given easymetadata: the root element and those of the given containers that are instantiated. With an empty set
+     * only the root element is written.
+     * 
+     * @param emd
+     *        the easymetadata to read
+     * @param containers
+     *        the containers to write
+     */
+    public EmdSAXSource(final EasyMetadata emd, final Set<MDContainer> containers) {
+        super(new Reader(emd, containers), new InputSource());
+    }
+
+    // Thrown by the visitor, which cannot throw SAXException.
+    private static final class VisitException extends RuntimeException {
+
+        private static final long serialVersionUID = -3375064581405779428L;
+
+        VisitException(final SAXException cause) {
+            super(cause);
+        }
+    }
+
+    private static final class Reader implements XMLReader {
+
+        private static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
+        private static final String NAMESPACE_PREFIXES = "http://xml.org/sax/features/namespace-prefixes";
+
+        private final EasyMetadata emd;
+        private final Set<MDContainer> containers;
+
+        private final Map<String, Boolean> features = new HashMap<String, Boolean>();
+        private final Map<String, Object> properties = new HashMap<String, Object>();
+
+        private ContentHandler contentHandler = new DefaultHandler();
+        private DTDHandler dtdHandler;
+        private EntityResolver entityResolver;
+        private ErrorHandler errorHandler;
+
+        Reader(final EasyMetadata emd, final Set<MDContainer> containers) {
+            this.emd = emd;
+            this.containers = containers;
+            features.put(NAMESPACES, Boolean.TRUE);
+            features.put(NAMESPACE_PREFIXES, Boolean.FALSE);
+        }
+
+        /** {@inheritDoc} */
+        public boolean getFeature(final String name) {
+            return Boolean.TRUE.equals(features.get(name));
+        }
+
+        /** {@inheritDoc} */
+        public void setFeature(final String name, final boolean value) {
+            // events are always namespace aware; other features do not apply
+            features.put(name, value);
+        }
+
+        /** {@inheritDoc} */
+        public Object getProperty(final String name) {
+            return properties.get(name);
+        }
+
+        /** {@inheritDoc} */
+        public void setProperty(final String name, final Object value) {
+            properties.put(name, value);
+        }
+
+        /** {@inheritDoc} */
+        public void setEntityResolver(final EntityResolver resolver) {
+            this.entityResolver = resolver;
+        }
+
+        /** {@inheritDoc} */
+        public EntityResolver getEntityResolver() {
+            return entityResolver;
+        }
+
+        /** {@inheritDoc} */
+        public void setDTDHandler(final DTDHandler handler) {
+            this.dtdHandler = handler;
+        }
+
+        /** {@inheritDoc} */
+        public DTDHandler getDTDHandler() {
+            return dtdHandler;
+        }
+
+        /** {@inheritDoc} */
+        public void setContentHandler(final ContentHandler handler) {
+            this.contentHandler = handler == null ? new DefaultHandler() : handler;
+        }
+
+        /** {@inheritDoc} */
+        public ContentHandler getContentHandler() {
+            return contentHandler;
+        }
+
+        /** {@inheritDoc} */
+        public void setErrorHandler(final ErrorHandler handler) {
+            this.errorHandler = handler;
+        }
+
+        /** {@inheritDoc} */
+        public ErrorHandler getErrorHandler() {
+            return errorHandler;
+        }
+
+        /** {@inheritDoc} */
+        public void parse(final InputSource input) throws IOException, SAXException {
+            try {
+                new Events(contentHandler).writeEasyMetadata(emd, containers);
+            }
+            catch (final VisitException e) {
+                throw (SAXException) e.getCause();
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void parse(final String systemId) throws IOException, SAXException {
+            parse(new InputSource(systemId));
+        }
+    }
+
+    private static final class Events implements EmdItemVisitor {
+
+        private final ContentHandler handler;
+        private final AttributesImpl attributes = new AttributesImpl();
+        private final AttributesImpl noAttributes = new AttributesImpl();
+
+        Events(final ContentHandler handler) {
+            this.handler = handler;
+        }
+
+        void writeEasyMetadata(final EasyMetadata emd, final Set<MDContainer> containers) throws SAXException {
+            handler.startDocument();
+            handler.startPrefixMapping("emd", EMD);
+            for (Term.Namespace namespace : Term.Namespace.values()) {
+                handler.startPrefixMapping(PREFIXES[namespace.ordinal()], namespace.uri);
+            }
+            attribute(EMD, "emd", "version", emd.getVersion());
+            start(EMD, "emd", "easymetadata");
+            for (MDContainer mdContainer : EmdBindingOrder.containers()) {
+                final EmdContainer container = containers == null || containers.contains(mdContainer) ? emd.getContainer(mdContainer, true) : null;
+                if (container != null) {
+                    writeContainer(mdContainer, container);
+                }
+            }
+            end(EMD, "emd", "easymetadata");
+            handler.endPrefixMapping("emd");
+            for (Term.Namespace namespace : Term.Namespace.values()) {
+                handler.endPrefixMapping(PREFIXES[namespace.ordinal()]);
+            }
+            handler.endDocument();
+        }
+
+        private void writeContainer(final MDContainer mdContainer, final EmdContainer container) throws SAXException {
+            final String localName = mdContainer.name().toLowerCase();
+            start(EMD, "emd", localName);
+            try {
+                container.accept(this);
+            }
+            catch (final VisitException e) {
+                throw (SAXException) e.getCause();
+            }
+            if (MDContainer.Other.equals(mdContainer)) {
+                writeOther((EmdOther) container);
+            }
+            end(EMD, "emd", localName);
+        }
+
+        // EmdOther-binding.xml, ApplicationSpecific-binding.xml, propertyList-binding.xml
+        private void writeOther(final EmdOther other) throws SAXException {
+            final ApplicationSpecific applicationSpecific = other.getEasApplicationSpecific();
+            if (applicationSpecific != null) {
+                start(EAS, "eas", "application-specific");
+                element(EAS, "eas", "metadataformat", toString(applicationSpecific.getMetadataFormat()));
+                element(EAS, "eas", "pakbon-status", toString(applicationSpecific.getPakbonStatus()));
+                end(EAS, "eas", "application-specific");
+            }
+            start(EAS, "eas", "etc");
+            for (PropertyList propertyList : other.getPropertyListCollection()) {
+                start(NO_NAMESPACE, null, "property-list");
+                element(NO_NAMESPACE, null, "comment", propertyList.getComment());
+                for (PropertyList.Property property : propertyList.getProperties()) {
+                    attribute(NO_NAMESPACE, null, "key", property.getKey());
+                    start(NO_NAMESPACE, null, "entry");
+                    text(property.getValue());
+                    end(NO_NAMESPACE, null, "entry");
+                }
+                end(NO_NAMESPACE, null, "property-list");
+            }
+            end(EAS, "eas", "etc");
+        }
+
+        /** {@inheritDoc} */
+        public boolean startContainer(final MDContainer mdContainer, final EmdContainer container) {
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public boolean term(final Term term, final List<? extends MetadataItem> items) {
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public boolean item(final Term term, final MetadataItem item) {
+            if (item != null) {
+                final Term.Namespace namespace = term.getNamespace();
+                final String localName = Term.Name.REMARKS.equals(term.getName()) ? "remark" : term.getName().termName;
+                try {
+                    writeItem(namespace.uri, PREFIXES[namespace.ordinal()], localName, item);
+                }
+                catch (final SAXException e) {
+                    throw new VisitException(e);
+                }
+            }
+            return true;
+        }
+
+        private void writeItem(final String uri, final String prefix, final String localName, final MetadataItem item) throws SAXException {
+            // subclasses before their super classes; attributes before the start of the element
+            if (item instanceof BasicIdentifier) {
+                writeBasicStringAttributes((BasicString) item);
+                attribute(EAS, "eas", "identification-system", toString(((BasicIdentifier) item).getIdentificationSystem()));
+                leaf(uri, prefix, localName, ((BasicString) item).getValue());
+            } else if (item instanceof BasicRemark) {
+                writeBasicStringAttributes((BasicString) item);
+                attribute(EAS, "eas", "author", ((BasicRemark) item).getAuthor());
+                leaf(uri, prefix, localName, ((BasicString) item).getValue());
+            } else if (item instanceof BasicString) {
+                writeBasicStringAttributes((BasicString) item);
+                leaf(uri, prefix, localName, ((BasicString) item).getValue());
+            } else if (item instanceof BasicDate) {
+                final BasicDate date = (BasicDate) item;
+                attribute(XMLConstants.XML_NS_URI, "xml", "lang", date.getLanguage());
+                attribute(EAS, "eas", "scheme", toString(date.getScheme()));
+                attribute(EAS, "eas", "schemeId", date.getSchemeId());
+                leaf(uri, prefix, localName, date.getValue());
+            } else if (item instanceof IsoDate) {
+                final IsoDate date = (IsoDate) item;
+                attribute(EAS, "eas", "scheme", toString(date.getScheme()));
+                attribute(EAS, "eas", "schemeId", date.getSchemeId());
+                attribute(EAS, "eas", "format", toString(date.getFormat()));
+                leaf(uri, prefix, localName, Converter.serializeDateTime(date.getValue()));
+            } else if (item instanceof Author) {
+                start(uri, prefix, localName);
+                writeAuthor((Author) item);
+                end(uri, prefix, localName);
+            } else if (item instanceof Relation) {
+                final Relation relation = (Relation) item;
+                attribute(EAS, "eas", "emphasis", relation.hasEmphasis() ? "true" : null);
+                start(uri, prefix, localName);
+                writeRelation(relation);
+                end(uri, prefix, localName);
+            } else if (item instanceof Spatial) {
+                start(uri, prefix, localName);
+                writeSpatial((Spatial) item);
+                end(uri, prefix, localName);
+            } else {
+                throw new SAXException("Cannot write " + item.getClass().getName());
+            }
+        }
+
+        // LanguageTokenizedString-binding.xml, BasicString-binding.xml
+        private void writeBasicStringAttributes(final BasicString item) {
+            attribute(XMLConstants.XML_NS_URI, "xml", "lang", item.getLanguage());
+            attribute(EAS, "eas", "scheme", item.getScheme());
+            attribute(EAS, "eas", "schemeId", item.getSchemeId());
+        }
+
+        // Author-binding.xml
+        private void writeAuthor(final Author author) throws SAXException {
+            element(EAS, "eas", "title", author.getTitle());
+            element(EAS, "eas", "initials", author.getInitials());
+            element(EAS, "eas", "prefix", author.getPrefix());
+            element(EAS, "eas", "surname", author.getSurname());
+            element(EAS, "eas", "organization", author.getOrganization());
+            final String identificationSystem = toString(author.getIdentificationSystem());
+            if (identificationSystem != null || author.getScheme() != null || author.getEntityId() != null) {
+                attribute(EAS, "eas", "identification-system", identificationSystem);
+                attribute(EAS, "eas", "scheme", author.getScheme());
+                start(EAS, "eas", "entityId");
+                text(author.getEntityId());
+                end(EAS, "eas", "entityId");
+            }
+        }
+
+        // Relation-binding.xml
+        private void writeRelation(final Relation relation) throws SAXException {
+            if (relation.getSubjectTitle() != null) {
+                writeItem(EAS, "eas", "subject-title", relation.getSubjectTitle());
+            }
+            if (relation.getSubjectIdentifier() != null) {
+                writeItem(EAS, "eas", "subject-identifier", relation.getSubjectIdentifier());
+            }
+            element(EAS, "eas", "subject-link", toString(relation.getSubjectLink()));
+        }
+
+        // Spatial-binding.xml
+        private void writeSpatial(final Spatial spatial) throws SAXException {
+            if (spatial.getPlace() != null) {
+                writeItem(EAS, "eas", "place", spatial.getPlace());
+            }
+            final Spatial.Point point = spatial.getPoint();
+            if (point != null) {
+                attribute(EAS, "eas", "scheme", point.getScheme());
+                attribute(EAS, "eas", "schemeId", point.getSchemeId());
+                start(EAS, "eas", "point");
+                element(EAS, "eas", "x", point.getX());
+                element(EAS, "eas", "y", point.getY());
+                end(EAS, "eas", "point");
+            }
+            final Spatial.Box box = spatial.getBox();
+            if (box != null) {
+                attribute(EAS, "eas", "scheme", box.getScheme());
+                attribute(EAS, "eas", "schemeId", box.getSchemeId());
+                start(EAS, "eas", "box");
+                element(EAS, "eas", "north", box.getNorth());
+                element(EAS, "eas", "east", box.getEast());
+                element(EAS, "eas", "south", box.getSouth());
+                element(EAS, "eas", "west", box.getWest());
+                end(EAS, "eas", "box");
+            }
+        }
+
+        // Adds an attribute for the next start element, unless its value is null.
+        private void attribute(final String uri, final String prefix, final String localName, final String value) {
+            if (value != null) {
+                attributes.addAttribute(uri, localName, qName(prefix, localName), CDATA, value);
+            }
+        }
+
+        // Writes an element with text, also if both text and attributes are absent.
+        private void leaf(final String uri, final String prefix, final String localName, final String text) throws SAXException {
+            start(uri, prefix, localName);
+            text(text);
+            end(uri, prefix, localName);
+        }
+
+        // Writes an optional element with text, unless the text and the attributes are absent.
+        private void element(final String uri, final String prefix, final String localName, final String text) throws SAXException {
+            if (text != null || attributes.getLength() > 0) {
+                start(uri, prefix, localName);
+                text(text);
+                end(uri, prefix, localName);
+            }
+        }
+
+        private void start(final String uri, final String prefix, final String localName) throws SAXException {
+            if (attributes.getLength() == 0) {
+                handler.startElement(uri, localName, qName(prefix, localName), noAttributes);
+            } else {
+                handler.startElement(uri, localName, qName(prefix, localName), attributes);
+                attributes.clear();
+            }
+        }
+
+        private void end(final String uri, final String prefix, final String localName) throws SAXException {
+            handler.endElement(uri, localName, qName(prefix, localName));
+        }
+
+        private void text(final String text) throws SAXException {
+            if (text != null && text.length() > 0) {
+                final char[] chars = text.toCharArray();
+                handler.characters(chars, 0, chars.length);
+            }
+        }
+
+        private static String qName(final String prefix, final String localName) {
+            return prefix == null ? localName : prefix + ":" + localName;
+        }
+
+        private static String toString(final Enum<?> constant) {
+            return constant == null ? null : constant.name();
+        }
+
+        private static String toString(final URI uri) {
+            return uri == null ? null : uri.toString();
+        }
+    }
+
+}
@@ -0,0 +1,646 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdContainer;
+import nl.knaw.dans.pf.language.emd.EmdOther;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.PropertyList;
+import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific;
+import nl.knaw.dans.pf.language.emd.types.Author;
+import nl.knaw.dans.pf.language.emd.types.BasicDate;
+import nl.knaw.dans.pf.language.emd.types.BasicIdentifier;
+import nl.knaw.dans.pf.language.emd.types.BasicRemark;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.EmdConstants;
+import nl.knaw.dans.pf.language.emd.types.IsoDate;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
+import nl.knaw.dans.pf.language.emd.types.Relation;
+import nl.knaw.dans.pf.language.emd.types.Spatial;
+import nl.knaw.dans.pf.language.emd.util.Converter;
+import nl.knaw.dans.pf.language.xml.exc.XMLDeserializationException;
+
+/**
+ * Unmarshaller for easymetadata that reads with StAX instead of JiBX. It follows the bindings in <code>src/main/config/*-binding.xml</code> and builds the
+ * same objects the {@link EmdUnmarshaller} builds:
+ * <ul>
+ * <li>values the bindings map to fields are written to the fields, also where the setter would normalize or validate them;</li>
+ * <li>optional values that are absent are <code>null</code>;</li>
+ * <li>the term lists of every container that is present are instantiated.</li>
+ * </ul>
+ * By default the reader is lenient about the order of elements and about a missing <code>eas:etc</code> in <code>emd:other</code>, but rejects elements the
+ * bindings do not know. A {@link #strict()} unmarshaller also rejects what the ordered JiBX binding rejects: containers out of {@link EmdBindingOrder
+ * binding order} or repeated, terms out of the order of {@link EmdContainer#getTerms()} and an <code>emd:other</code> without <code>eas:etc</code>.
+ * Instances are immutable and can be shared between threads.
+ * <p/>
+ * Unmarshallers made with {@link #forContainers(Set)} or {@link #forTerms(Set)} only build the objects of the given containers or terms; the subtrees of all
+ * other elements are skipped by the parser. Once all selected containers are read, the rest of the document is not parsed at all.
+ * 
+ * @see EmdUnmarshaller
+ */
+public class EmdStaxUnmarshaller {
+
+    /**
+     * Namespace of the easymetadata root and container elements.
+     */
+    public static final String EMD_NAMESPACE = "http://easy.dans.knaw.nl/easy/easymetadata/";
+
+    private static final String ROOT = "easymetadata";
+    private static final String VERSION = "version";
+
+    private static final String EAS = Term.Namespace.EAS.uri;
+    private static final String NO_NAMESPACE = XMLConstants.NULL_NS_URI;
+
+    // Element names that differ from the term name.
+    private static final String REMARK = "remark";
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    // Container by element name.
+    private static final Map<String, MDContainer> CONTAINERS = new HashMap<String, MDContainer>();
+
+    // Term, with its type, by namespace and element name.
+    private static final Map<Term.Namespace, Map<String, Term>> TERMS = createTermMaps();
+
+    static {
+        for (MDContainer mdContainer : MDContainer.values()) {
+            CONTAINERS.put(mdContainer.name().toLowerCase(), mdContainer);
+        }
+    }
+
+    // Selected containers by MDContainer ordinal, null if all are selected.
+    private final boolean[] selectedContainers;
+
+    // Selected terms by Term ordinal, null if all are selected.
+    private final boolean[] selectedTerms;
+
+    private final boolean strict;
+
+    /**
+     * Constructs a lenient unmarshaller that reads the whole document.
+     */
+    public EmdStaxUnmarshaller() {
+        this(null, null, false);
+    }
+
+    private EmdStaxUnmarshaller(final boolean[] selectedContainers, final boolean[] selectedTerms, final boolean strict) {
+        this.selectedContainers = selectedContainers;
+        this.selectedTerms = selectedTerms;
+        this.strict = strict;
+    }
+
+    /**
+     * Get an unmarshaller that reads what this unmarshaller reads, but enforces the order of the bindings like the {@link EmdUnmarshaller} does.
+     * 
+     * @return a strict unmarshaller
+     */
+    public EmdStaxUnmarshaller strict() {
+        return new EmdStaxUnmarshaller(selectedContainers, selectedTerms, true);
+    }
+
+    /**
+     * Does this unmarshaller enforce the order of the bindings.
+     * 
+     * @return <code>true</code> if strict, <code>false</code> if lenient
+     */
+    public boolean isStrict() {
+        return strict;
+    }
+
+    /**
+     * Get an unmarshaller that only reads the given containers. The easymetadata it returns has no other containers.
+     * 
+     * @param mdContainers
+     *        the containers to read
+     * @return an unmarshaller for the given containers
+     */
+    public static EmdStaxUnmarshaller forContainers(final Set<MDContainer> mdContainers) {
+        final boolean[] selectedContainers = new boolean[MDContainer.values().length];
+        for (MDContainer mdContainer : mdContainers) {
+            selectedContainers[mdContainer.ordinal()] = true;
+        }
+        return new EmdStaxUnmarshaller(selectedContainers, null, false);
+    }
+
+    /**
+     * Get an unmarshaller that only reads the items of the given terms. A term without name space selects the term name in all name spaces. The easymetadata
+     * it returns only has the containers of these terms, and their lists of other terms are empty. The application specific settings and property lists of
+     * {@link EmdOther} are not terms and are not read.
+     * 
+     * @param terms
+     *        the terms to read
+     * @return an unmarshaller for the given terms
+     */
+    public static EmdStaxUnmarshaller forTerms(final Set<Term> terms) {
+        final boolean[] selectedContainers = new boolean[MDContainer.values().length];
+        final boolean[] selectedTerms = new boolean[Term.ORDINAL_COUNT];
+        for (Map.Entry<Term, MDContainer> entry : BeanFields.newEasyMetadata().getTermsMap().entrySet()) {
+            final Term term = entry.getKey();
+            if (terms.contains(term) || terms.contains(Term.of(term.getName()))) {
+                selectedTerms[term.ordinal()] = true;
+                selectedContainers[entry.getValue().ordinal()] = true;
+            }
+        }
+        return new EmdStaxUnmarshaller(selectedContainers, selectedTerms, false);
+    }
+
+    private static Map<Term.Namespace, Map<String, Term>> createTermMaps() {
+        final Map<Term.Namespace, Map<String, Term>> maps = new EnumMap<Term.Namespace, Map<String, Term>>(Term.Namespace.class);
+        for (Term.Namespace namespace : Term.Namespace.values()) {
+            maps.put(namespace, new HashMap<String, Term>());
+        }
+        for (Term term : BeanFields.newEasyMetadata().getTermsMap().keySet()) {
+            final String elementName = Term.Name.REMARKS.equals(term.getName()) ? REMARK : term.getName().termName;
+            maps.get(term.getNamespace()).put(elementName, term);
+        }
+        return maps;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Unmarshal easymetadata from the given string.
+     * 
+     * @param xml
+     *        easymetadata as xml
+     * @return the easymetadata
+     * @throws XMLDeserializationException
+     *         if the xml is not well-formed or not easymetadata
+     */
+    public EasyMetadata unmarshal(final String xml) throws XMLDeserializationException {
+        return unmarshal(new StringReader(xml));
+    }
+
+    /**
+     * Unmarshal easymetadata from the given bytes.
+     * 
+     * @param bytes
+     *        easymetadata as xml
+     * @return the easymetadata
+     * @throws XMLDeserializationException
+     *         if the xml is not well-formed or not easymetadata
+     */
+    public EasyMetadata unmarshal(final byte[] bytes) throws XMLDeserializationException {
+        return unmarshal(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Unmarshal easymetadata from the remaining bytes of the given buffer. The position of the buffer is advanced past the bytes read.
+     * 
+     * @param buffer
+     *        easymetadata as xml
+     * @return the easymetadata
+     * @throws XMLDeserializationException
+     *         if the xml is not well-formed or not easymetadata
+     */
+    public EasyMetadata unmarshal(final ByteBuffer buffer) throws XMLDeserializationException {
+        EasyMetadata emd;
+        if (buffer.hasArray()) {
+            final int offset = buffer.arrayOffset() + buffer.position();
+            emd = unmarshal(new ByteArrayInputStream(buffer.array(), offset, buffer.remaining()));
+            buffer.position(buffer.limit());
+        } else {
+            final byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            emd = unmarshal(bytes);
+        }
+        return emd;
+    }
+
+    /**
+     * Unmarshal easymetadata from the given stream. The stream is not closed.
+     * 
+     * @param in
+     *        easymetadata as xml
+     * @return the easymetadata
+     * @throws XMLDeserializationException
+     *         if the xml is not well-formed or not easymetadata
+     */
+    public EasyMetadata unmarshal(final InputStream in) throws XMLDeserializationException {
+        XMLStreamReader reader;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(in);
+        }
+        catch (final XMLStreamException e) {
+            throw new XMLDeserializationException(e);
+        }
+        return unmarshal(reader);
+    }
+
+    /**
+     * Unmarshal easymetadata from the given reader. The reader is not closed.
+     * 
+     * @param in
+     *        easymetadata as xml
+     * @return the easymetadata
+     * @throws XMLDeserializationException
+     *         if the xml is not well-formed or not easymetadata
+     */
+    public EasyMetadata unmarshal(final Reader in) throws XMLDeserializationException {
+        XMLStreamReader reader;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(in);
+        }
+        catch (final XMLStreamException e) {
+            throw new XMLDeserializationException(e);
+        }
+        return unmarshal(reader);
+    }
+
+    private EasyMetadata unmarshal(final XMLStreamReader reader) throws XMLDeserializationException {
+        try {
+            return readEasyMetadata(reader);
+        }
+        catch (final XMLStreamException e) {
+            throw new XMLDeserializationException(e);
+        }
+        catch (final URISyntaxException e) {
+            throw new XMLDeserializationException(e);
+        }
+        catch (final IllegalArgumentException e) {
+            // invalid enum constants and dates
+            throw new XMLDeserializationException(e);
+        }
+        finally {
+            try {
+                reader.close();
+            }
+            // ecco: CHECKSTYLE: OFF
+            catch (final XMLStreamException e) {
+                // the underlying source is closed by the caller
+            }
+            // ecco: CHECKSTYLE: ON
+        }
+    }
+
+    private EasyMetadataImpl readEasyMetadata(final XMLStreamReader reader) throws XMLStreamException, URISyntaxException, XMLDeserializationException {
+        reader.nextTag();
+        if (!isAt(reader, EMD_NAMESPACE, ROOT)) {
+            throw new XMLDeserializationException("Not easymetadata: " + reader.getName());
+        }
+        final EasyMetadataImpl emd = BeanFields.newEasyMetadata();
+        emd.setVersion(reader.getAttributeValue(EMD_NAMESPACE, VERSION));
+        int toRead = countSelectedContainers();
+        int lastPosition = -1;
+        while (toRead > 0 && reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            final MDContainer mdContainer = EMD_NAMESPACE.equals(reader.getNamespaceURI()) ? CONTAINERS.get(reader.getLocalName()) : null;
+            if (mdContainer == null) {
+                throw unexpected(reader);
+            }
+            if (strict) {
+                final int position = EmdBindingOrder.position(mdContainer);
+                if (position <= lastPosition) {
+                    throw outOfOrder(reader);
+                }
+                lastPosition = position;
+            }
+            if (selectedContainers == null || selectedContainers[mdContainer.ordinal()]) {
+                readContainer(reader, mdContainer, emd.getContainer(mdContainer, false));
+                toRead--;
+            } else {
+                skipElement(reader);
+            }
+        }
+        return emd;
+    }
+
+    // The container of the given root child element name, or null.
+    static MDContainer getContainer(final String localName) {
+        return CONTAINERS.get(localName);
+    }
+
+    private int countSelectedContainers() {
+        int count = 0;
+        for (int i = 0; i < MDContainer.values().length; i++) {
+            if (selectedContainers == null || selectedContainers[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void readContainer(final XMLStreamReader reader, final MDContainer mdContainer, final EmdContainer container) throws XMLStreamException,
+            URISyntaxException, XMLDeserializationException
+    {
+        // like JiBX, instantiate the lists of all terms
+        for (Term term : container.getTerms()) {
+            container.get(term);
+        }
+        final boolean other = MDContainer.Other.equals(mdContainer);
+        if (other) {
+            ((EmdOther) container).setEasApplicationSpecific(null);
+        }
+        final List<Term> terms = container.getTerms();
+        // in binding order, the terms of emd:other are followed by eas:application-specific and eas:etc
+        final int applicationSpecificPosition = terms.size();
+        final int etcPosition = terms.size() + 1;
+        int lastPosition = -1;
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (strict) {
+                int position;
+                if (other && isAt(reader, EAS, "application-specific")) {
+                    position = applicationSpecificPosition;
+                } else if (other && isAt(reader, EAS, "etc")) {
+                    position = etcPosition;
+                } else {
+                    position = terms.indexOf(getTerm(reader));
+                }
+                // unknown elements (position -1) are rejected below
+                if (position >= 0 && (position < lastPosition || position == lastPosition && position >= applicationSpecificPosition)) {
+                    throw outOfOrder(reader);
+                }
+                lastPosition = Math.max(position, lastPosition);
+            }
+            if (other && selectedTerms != null && (isAt(reader, EAS, "application-specific") || isAt(reader, EAS, "etc"))) {
+                // not terms
+                skipElement(reader);
+            } else if (other && isAt(reader, EAS, "application-specific")) {
+                ((EmdOther) container).setEasApplicationSpecific(readApplicationSpecific(reader));
+            } else if (other && isAt(reader, EAS, "etc")) {
+                readEtc(reader, (EmdOther) container);
+            } else {
+                final Term term = getTerm(reader);
+                if (term == null || !terms.contains(term)) {
+                    throw unexpected(reader);
+                }
+                if (selectedTerms == null || selectedTerms[term.ordinal()]) {
+                    container.get(term).add(readItem(reader, term.getType()));
+                } else {
+                    skipElement(reader);
+                }
+            }
+        }
+        if (strict && other && lastPosition != etcPosition) {
+            throw new XMLStreamException("Missing element {" + EAS + "}etc", reader.getLocation());
+        }
+    }
+
+    private Term getTerm(final XMLStreamReader reader) {
+        Term term = null;
+        final String namespaceURI = reader.getNamespaceURI();
+        for (Term.Namespace namespace : Term.Namespace.values()) {
+            if (namespace.uri.equals(namespaceURI)) {
+                term = TERMS.get(namespace).get(reader.getLocalName());
+                break;
+            }
+        }
+        return term;
+    }
+
+    private MetadataItem readItem(final XMLStreamReader reader, final Class<?> type) throws XMLStreamException, URISyntaxException,
+            XMLDeserializationException
+    {
+        MetadataItem item;
+        if (BasicString.class.equals(type)) {
+            item = readBasicString(reader, new BasicString());
+        } else if (BasicIdentifier.class.equals(type)) {
+            item = readBasicIdentifier(reader);
+        } else if (BasicRemark.class.equals(type)) {
+            final BasicRemark remark = new BasicRemark();
+            remark.setAuthor(reader.getAttributeValue(EAS, "author"));
+            item = readBasicString(reader, remark);
+        } else if (BasicDate.class.equals(type)) {
+            item = readBasicDate(reader);
+        } else if (IsoDate.class.equals(type)) {
+            item = readIsoDate(reader);
+        } else if (Author.class.equals(type)) {
+            item = readAuthor(reader);
+        } else if (Relation.class.equals(type)) {
+            item = readRelation(reader);
+        } else if (Spatial.class.equals(type)) {
+            item = readSpatial(reader);
+        } else {
+            throw new XMLDeserializationException("No reader for type " + type);
+        }
+        return item;
+    }
+
+    // LanguageTokenizedString, BasicString-binding.xml
+    private <T extends BasicString> T readBasicString(final XMLStreamReader reader, final T item) throws XMLStreamException {
+        BeanFields.set(BeanFields.LANGUAGE, item, reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang"));
+        item.setScheme(reader.getAttributeValue(EAS, "scheme"));
+        item.setSchemeId(reader.getAttributeValue(EAS, "schemeId"));
+        item.setValue(reader.getElementText());
+        return item;
+    }
+
+    // BasicIdentifier-binding.xml
+    private BasicIdentifier readBasicIdentifier(final XMLStreamReader reader) throws XMLStreamException, URISyntaxException {
+        final BasicIdentifier identifier = new BasicIdentifier();
+        identifier.setIdentificationSystem(toURI(reader.getAttributeValue(EAS, "identification-system")));
+        return readBasicString(reader, identifier);
+    }
+
+    // BasicDate-binding.xml
+    private BasicDate readBasicDate(final XMLStreamReader reader) throws XMLStreamException {
+        final BasicDate date = new BasicDate();
+        BeanFields.set(BeanFields.LANGUAGE, date, reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang"));
+        final String scheme = reader.getAttributeValue(EAS, "scheme");
+        BeanFields.set(BeanFields.DATE_SCHEME, date, scheme == null ? null : EmdConstants.DateScheme.valueOf(scheme));
+        date.setSchemeId(reader.getAttributeValue(EAS, "schemeId"));
+        date.setValue(reader.getElementText());
+        return date;
+    }
+
+    // IsoDate-binding.xml
+    private IsoDate readIsoDate(final XMLStreamReader reader) throws XMLStreamException {
+        final IsoDate date = new IsoDate();
+        date.setSchemeId(reader.getAttributeValue(EAS, "schemeId"));
+        final String format = reader.getAttributeValue(EAS, "format");
+        date.setFormat(format == null ? null : IsoDate.Format.valueOf(format));
+        date.setValue(Converter.deSerializeDateTime(reader.getElementText()));
+        return date;
+    }
+
+    // Author-binding.xml
+    private Author readAuthor(final XMLStreamReader reader) throws XMLStreamException, URISyntaxException {
+        final Author author = new Author();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (isAt(reader, EAS, "title")) {
+                BeanFields.set(BeanFields.AUTHOR_TITLE, author, reader.getElementText());
+            } else if (isAt(reader, EAS, "initials")) {
+                BeanFields.set(BeanFields.AUTHOR_INITIALS, author, reader.getElementText());
+            } else if (isAt(reader, EAS, "prefix")) {
+                author.setPrefix(reader.getElementText());
+            } else if (isAt(reader, EAS, "surname")) {
+                BeanFields.set(BeanFields.AUTHOR_SURNAME, author, reader.getElementText());
+            } else if (isAt(reader, EAS, "organization")) {
+                author.setOrganization(reader.getElementText());
+            } else if (isAt(reader, EAS, "entityId")) {
+                author.setIdentificationSystem(toURI(reader.getAttributeValue(EAS, "identification-system")));
+                final String scheme = reader.getAttributeValue(EAS, "scheme");
+                author.setEntityId(reader.getElementText(), scheme);
+            } else {
+                throw unexpected(reader);
+            }
+        }
+        return author;
+    }
+
+    // Relation-binding.xml
+    private Relation readRelation(final XMLStreamReader reader) throws XMLStreamException, URISyntaxException {
+        final Relation relation = new Relation();
+        relation.setEmphasis(toBoolean(reader.getAttributeValue(EAS, "emphasis")));
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (isAt(reader, EAS, "subject-title")) {
+                relation.setSubjectTitle(readBasicString(reader, new BasicString()));
+            } else if (isAt(reader, EAS, "subject-identifier")) {
+                relation.setSubjectIdentifier(readBasicIdentifier(reader));
+            } else if (isAt(reader, EAS, "subject-link")) {
+                relation.setSubjectLink(toURI(reader.getElementText()));
+            } else {
+                throw unexpected(reader);
+            }
+        }
+        return relation;
+    }
+
+    // Spatial-binding.xml
+    private Spatial readSpatial(final XMLStreamReader reader) throws XMLStreamException {
+        final Spatial spatial = new Spatial();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (isAt(reader, EAS, "place")) {
+                spatial.setPlace(readBasicString(reader, new BasicString()));
+            } else if (isAt(reader, EAS, "point")) {
+                final String scheme = reader.getAttributeValue(EAS, "scheme");
+                final String schemeId = reader.getAttributeValue(EAS, "schemeId");
+                final Map<String, String> values = readValues(reader);
+                final Spatial.Point point = new Spatial.Point(scheme, values.get("x"), values.get("y"));
+                point.setSchemeId(schemeId);
+                BeanFields.set(BeanFields.SPATIAL_POINT, spatial, point);
+            } else if (isAt(reader, EAS, "box")) {
+                final String scheme = reader.getAttributeValue(EAS, "scheme");
+                final String schemeId = reader.getAttributeValue(EAS, "schemeId");
+                final Map<String, String> values = readValues(reader);
+                final Spatial.Box box = new Spatial.Box(scheme, values.get("north"), values.get("east"), values.get("south"), values.get("west"));
+                box.setSchemeId(schemeId);
+                BeanFields.set(BeanFields.SPATIAL_BOX, spatial, box);
+            } else {
+                throw unexpected(reader);
+            }
+        }
+        return spatial;
+    }
+
+    // ApplicationSpecific-binding.xml
+    private ApplicationSpecific readApplicationSpecific(final XMLStreamReader reader) throws XMLStreamException {
+        final ApplicationSpecific applicationSpecific = new ApplicationSpecific();
+        final Map<String, String> values = readValues(reader);
+        final String metadataFormat = values.get("metadataformat");
+        final String pakbonStatus = values.get("pakbon-status");
+        applicationSpecific.setMetadataFormat(metadataFormat == null ? null : ApplicationSpecific.MetadataFormat.valueOf(metadataFormat));
+        applicationSpecific.setPakbonStatus(pakbonStatus == null ? null : ApplicationSpecific.PakbonStatus.valueOf(pakbonStatus));
+        return applicationSpecific;
+    }
+
+    // EmdOther-binding.xml, propertyList-binding.xml
+    private void readEtc(final XMLStreamReader reader, final EmdOther other) throws XMLStreamException {
+        final List<PropertyList> propertyLists = other.getPropertyListCollection();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!isAt(reader, NO_NAMESPACE, "property-list")) {
+                throw unexpected(reader);
+            }
+            final PropertyList propertyList = new PropertyList();
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if (isAt(reader, NO_NAMESPACE, "comment")) {
+                    propertyList.setComment(reader.getElementText());
+                } else if (isAt(reader, NO_NAMESPACE, "entry")) {
+                    final String key = reader.getAttributeValue(NO_NAMESPACE, "key");
+                    propertyList.addProperty(key, reader.getElementText());
+                } else {
+                    throw unexpected(reader);
+                }
+            }
+            propertyLists.add(propertyList);
+        }
+    }
+
+    // Reads the text of the simple child elements of the current element, in the eas namespace, by local name.
+    private Map<String, String> readValues(final XMLStreamReader reader) throws XMLStreamException {
+        final Map<String, String> values = new HashMap<String, String>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!EAS.equals(reader.getNamespaceURI())) {
+                throw unexpected(reader);
+            }
+            values.put(reader.getLocalName(), reader.getElementText());
+        }
+        return values;
+    }
+
+    // Skips the current element and its subtree, leaving the reader at its end tag.
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static boolean isAt(final XMLStreamReader reader, final String namespaceURI, final String localName) {
+        final String readerNamespace = reader.getNamespaceURI();
+        return localName.equals(reader.getLocalName()) && namespaceURI.equals(readerNamespace == null ? NO_NAMESPACE : readerNamespace);
+    }
+
+    private static XMLStreamException unexpected(final XMLStreamReader reader) {
+        return new XMLStreamException("Unexpected element " + reader.getName(), reader.getLocation());
+    }
+
+    private static XMLStreamException outOfOrder(final XMLStreamReader reader) {
+        return new XMLStreamException("Element " + reader.getName() + " out of binding order", reader.getLocation());
+    }
+
+    private static URI toURI(final String value) throws URISyntaxException {
+        return value == null ? null : new URI(value);
+    }
+
+    // JiBX accepts the xs:boolean lexical forms.
+    private static boolean toBoolean(final String value) {
+        return value != null && ("true".equals(value.trim()) || "1".equals(value.trim()));
+    }
+
+}
@@ -0,0 +1,403 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdContainer;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.types.Revisions;
+import nl.knaw.dans.pf.language.xml.exc.XMLDeserializationException;
+import nl.knaw.dans.pf.language.xml.exc.XMLSerializationException;
+
+/**
+ * EasyMetadata that reads its containers from the xml only when they are first used. On construction only the root element is read and the byte ranges of
+ * the top-level container elements are indexed; a container is parsed by the {@link EmdStaxUnmarshaller} when it is first asked for, directly or by a method
+ * that needs it.
+ * <p/>
+ * {@link #writeTo(OutputStream)} writes the original bytes of containers that were not modified since they were loaded, so a document that was only read is
+ * written back unchanged. Modifications are detected by the {@link Revisions revisions} of the containers. The containers keep the order they have in the
+ * document; containers that were added go to their place in {@link EmdBindingOrder binding order}. Marshalling with the {@link EmdMarshaller} or
+ * {@link EmdBindingEngine} loads all containers first.
+ * <p/>
+ * A container fragment that turns out not to be valid easymetadata raises a RuntimeException when it is loaded. The byte array given to the constructor
+ * is not copied and should not be changed afterwards. Like {@link EasyMetadataImpl}, this class is not thread-safe.
+ */
+public class LazyEasyMetadata extends EasyMetadataImpl {
+
+    private static final long serialVersionUID = -4189025236771350627L;
+
+    private static final MDContainer[] MD_CONTAINERS = MDContainer.values();
+
+    private static final Pattern ENCODING_PATTERN = Pattern.compile("encoding\\s*=\\s*[\"']([^\"']+)[\"']");
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private static final EmdStaxUnmarshaller ROOT_READER = EmdStaxUnmarshaller.forContainers(EnumSet.noneOf(MDContainer.class));
+
+    // Reader per container, by MDContainer ordinal.
+    private static final EmdStaxUnmarshaller[] CONTAINER_READERS = new EmdStaxUnmarshaller[MD_CONTAINERS.length];
+
+    // Writes containers as fragments, without xml declaration.
+    private static final EmdBindingEngine FRAGMENT_ENGINE = new EmdBindingEngine("UTF-8", true, true, EmdBindingEngine.DEFAULT_INDENT);
+
+    static {
+        for (MDContainer mdContainer : MD_CONTAINERS) {
+            CONTAINER_READERS[mdContainer.ordinal()] = EmdStaxUnmarshaller.forContainers(EnumSet.of(mdContainer));
+        }
+    }
+
+    private final byte[] xml;
+
+    // End of the root start tag.
+    private int rootStartEnd;
+    // Start and end of the root end tag, -1 if the root element is empty.
+    private int rootEndStart = -1;
+    private int rootEndEnd = -1;
+    // End of the last container element, or rootStartEnd.
+    private int lastContainerEnd;
+
+    // By MDContainer ordinal: the end of the preceding element, the start and the end of the container element; -1 if absent.
+    private final int[] gapStarts = new int[MD_CONTAINERS.length];
+    private final int[] elementStarts = new int[MD_CONTAINERS.length];
+    private final int[] elementEnds = new int[MD_CONTAINERS.length];
+
+    // Containers of which the fragment was not loaded, by MDContainer ordinal.
+    private final boolean[] pending = new boolean[MD_CONTAINERS.length];
+
+    // Containers that were loaded and their revisions just after loading, by MDContainer ordinal.
+    private final boolean[] loaded = new boolean[MD_CONTAINERS.length];
+    private final long[] loadedRevisions = new long[MD_CONTAINERS.length];
+
+    // Containers in the order of the document.
+    private final List<MDContainer> documentOrder = new ArrayList<MDContainer>();
+
+    private final String originalVersion;
+
+    // True if loaded containers can be written between original fragments.
+    private boolean utf8;
+
+    // The whole document, read at once if it is not in an ASCII-compatible encoding.
+    private EasyMetadata eager;
+
+    /**
+     * Constructs lazy easymetadata from the given xml.
+     * 
+     * @param xml
+     *        easymetadata as xml; the array is not copied
+     * @throws XMLDeserializationException
+     *         if the root element is not easymetadata or the top-level elements are not containers
+     */
+    public LazyEasyMetadata(final byte[] xml) throws XMLDeserializationException {
+        super();
+        this.xml = xml;
+        Arrays.fill(gapStarts, -1);
+        Arrays.fill(elementStarts, -1);
+        Arrays.fill(elementEnds, -1);
+        originalVersion = ROOT_READER.unmarshal(xml).getVersion();
+        setVersion(originalVersion);
+        if (isAsciiCompatible()) {
+            index();
+        } else {
+            eager = new EmdStaxUnmarshaller().unmarshal(xml);
+        }
+    }
+
+    /**
+     * Tells if the given container was loaded, or instantiated otherwise.
+     * 
+     * @param mdContainer
+     *        the container
+     * @return <code>true</code> if the container is in memory, <code>false</code> otherwise
+     */
+    public boolean isLoaded(final MDContainer mdContainer) {
+        return peekContainer(mdContainer) != null;
+    }
+
+    /**
+     * Tells if the given container was modified. A container that was in the document is modified if its revision changed since it was loaded; a container
+     * that was not in the document is modified if it was instantiated and has items, or, for {@link MDContainer#Other}, if it was instantiated at all.
+     * 
+     * @param mdContainer
+     *        the container
+     * @return <code>true</code> if the container must be marshalled, <code>false</code> if it is as it was read
+     */
+    public boolean isModified(final MDContainer mdContainer) {
+        final EmdContainer container = peekContainer(mdContainer);
+        boolean modified;
+        if (container == null) {
+            modified = false;
+        } else if (loaded[mdContainer.ordinal()]) {
+            modified = Revisions.fold(0, container) != loadedRevisions[mdContainer.ordinal()];
+        } else {
+            // the state of emd:other is not limited to its items
+            modified = MDContainer.Other.equals(mdContainer) || !container.isEmpty();
+        }
+        return modified;
+    }
+
+    /**
+     * Write this easymetadata as xml. If nothing was modified, the original bytes are written. Otherwise containers that were not modified are written as
+     * their original bytes and the others are marshalled. The stream is not closed.
+     * 
+     * @param out
+     *        the stream to write to
+     * @throws IOException
+     *         if the stream throws it
+     * @throws XMLSerializationException
+     *         if a loaded container could not be marshalled
+     */
+    public void writeTo(final OutputStream out) throws IOException, XMLSerializationException {
+        final boolean versionModified = originalVersion == null ? getVersion() != null : !originalVersion.equals(getVersion());
+        boolean untouched = !versionModified;
+        for (MDContainer mdContainer : MD_CONTAINERS) {
+            untouched &= !isModified(mdContainer);
+        }
+        if (untouched) {
+            out.write(xml);
+        } else if (eager != null || !utf8 || rootEndStart < 0 || versionModified) {
+            EmdBindingEngine.instance().marshal(this, out);
+        } else {
+            out.write(xml, 0, rootStartEnd);
+            for (MDContainer mdContainer : getWriteOrder()) {
+                final int i = mdContainer.ordinal();
+                if (elementStarts[i] < 0) {
+                    if (isModified(mdContainer)) {
+                        out.write(NEWLINE);
+                        FRAGMENT_ENGINE.marshal(peekContainer(mdContainer), out);
+                    }
+                } else if (isModified(mdContainer)) {
+                    out.write(xml, gapStarts[i], elementStarts[i] - gapStarts[i]);
+                    FRAGMENT_ENGINE.marshal(peekContainer(mdContainer), out);
+                } else {
+                    out.write(xml, gapStarts[i], elementEnds[i] - gapStarts[i]);
+                }
+            }
+            out.write(xml, lastContainerEnd, xml.length - lastContainerEnd);
+        }
+        out.flush();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected EmdContainer loadContainer(final MDContainer mdContainer) {
+        EmdContainer container = null;
+        final int i = mdContainer.ordinal();
+        if (eager != null) {
+            container = eager.getContainer(mdContainer, true);
+        } else if (pending[i]) {
+            pending[i] = false;
+            final InputStream in = new SequenceInputStream(new ByteArrayInputStream(xml, 0, rootStartEnd), new SequenceInputStream(new ByteArrayInputStream(
+                    xml, elementStarts[i], elementEnds[i] - elementStarts[i]), new ByteArrayInputStream(xml, rootEndStart, rootEndEnd - rootEndStart)));
+            try {
+                container = CONTAINER_READERS[i].unmarshal(in).getContainer(mdContainer, true);
+            }
+            catch (final XMLDeserializationException e) {
+                throw new RuntimeException("Could not load " + mdContainer, e);
+            }
+        }
+        if (container != null) {
+            loaded[i] = true;
+            loadedRevisions[i] = Revisions.fold(0, container);
+        }
+        return container;
+    }
+
+    // The containers of the document in document order, with the containers that were not in it at their place in binding order.
+    private List<MDContainer> getWriteOrder() {
+        final List<MDContainer> order = new ArrayList<MDContainer>(documentOrder);
+        for (MDContainer mdContainer : EmdBindingOrder.containers()) {
+            if (elementStarts[mdContainer.ordinal()] < 0) {
+                final int position = EmdBindingOrder.position(mdContainer);
+                int index = 0;
+                while (index < order.size() && EmdBindingOrder.position(order.get(index)) < position) {
+                    index++;
+                }
+                order.add(index, mdContainer);
+            }
+        }
+        return order;
+    }
+
+    // The bytes can be scanned for markup if the encoding is a superset of ASCII.
+    private boolean isAsciiCompatible() {
+        boolean compatible = false;
+        if (xml.length >= 2 && (xml[0] == (byte) 0xFE || xml[0] == (byte) 0xFF || xml[0] == 0 || xml[1] == 0)) {
+            // byte order mark or zero bytes of UTF-16 or UTF-32
+            compatible = false;
+        } else {
+            final String encoding = getDeclaredEncoding();
+            utf8 = encoding == null || "UTF-8".equalsIgnoreCase(encoding) || "UTF8".equalsIgnoreCase(encoding);
+            compatible = encoding == null || !encoding.toUpperCase().startsWith("UTF-16") && !encoding.toUpperCase().startsWith("UTF-32");
+        }
+        return compatible;
+    }
+
+    private String getDeclaredEncoding() {
+        String encoding = null;
+        if (startsWith(0, "<?xml")) {
+            final int end = indexOf(0, "?>");
+            final Matcher matcher = ENCODING_PATTERN.matcher(latin1(0, end < 0 ? xml.length : end));
+            if (matcher.find()) {
+                encoding = matcher.group(1);
+            }
+        }
+        return encoding;
+    }
+
+    // Index the byte ranges of the root tags and the container elements.
+    private void index() throws XMLDeserializationException {
+        int depth = 0;
+        int i = 0;
+        int gapStart = -1;
+        MDContainer current = null;
+        while (i < xml.length && rootEndEnd < 0) {
+            if (xml[i] != '<') {
+                i++;
+            } else if (startsWith(i, "<?")) {
+                i = skipPast(i, "?>");
+            } else if (startsWith(i, "<!--")) {
+                i = skipPast(i, "-->");
+            } else if (startsWith(i, "<![CDATA[")) {
+                i = skipPast(i, "]]>");
+            } else if (startsWith(i, "<!")) {
+                throw new XMLDeserializationException("Document type declarations are not supported");
+            } else if (startsWith(i, "</")) {
+                final int end = skipPast(i, ">");
+                depth--;
+                if (depth == 1 && current != null) {
+                    elementEnds[current.ordinal()] = end;
+                    lastContainerEnd = end;
+                    gapStart = end;
+                    current = null;
+                } else if (depth == 0) {
+                    rootEndStart = i;
+                    rootEndEnd = end;
+                }
+                i = end;
+            } else {
+                final int end = endOfStartTag(i);
+                final boolean empty = xml[end - 2] == '/';
+                if (depth == 0) {
+                    rootStartEnd = end;
+                    lastContainerEnd = end;
+                    gapStart = end;
+                } else if (depth == 1) {
+                    current = startContainer(i, gapStart);
+                    if (empty) {
+                        elementEnds[current.ordinal()] = end;
+                        lastContainerEnd = end;
+                        gapStart = end;
+                        current = null;
+                    }
+                }
+                if (!empty) {
+                    depth++;
+                } else if (depth == 0) {
+                    // empty root element, nothing more to index
+                    break;
+                }
+                i = end;
+            }
+        }
+    }
+
+    private MDContainer startContainer(final int start, final int gapStart) throws XMLDeserializationException {
+        int nameEnd = start + 1;
+        while (nameEnd < xml.length && xml[nameEnd] > ' ' && xml[nameEnd] != '>' && xml[nameEnd] != '/') {
+            nameEnd++;
+        }
+        final String qName = latin1(start + 1, nameEnd);
+        final MDContainer mdContainer = EmdStaxUnmarshaller.getContainer(qName.substring(qName.indexOf(':') + 1));
+        if (mdContainer == null || elementStarts[mdContainer.ordinal()] >= 0) {
+            throw new XMLDeserializationException("Unexpected element " + qName);
+        }
+        gapStarts[mdContainer.ordinal()] = gapStart;
+        elementStarts[mdContainer.ordinal()] = start;
+        pending[mdContainer.ordinal()] = true;
+        documentOrder.add(mdContainer);
+        return mdContainer;
+    }
+
+    // Index after the '>' of the start tag at the given index, skipping quoted attribute values.
+    private int endOfStartTag(final int start) throws XMLDeserializationException {
+        int end = -1;
+        byte quote = 0;
+        for (int i = start + 1; end < 0 && i < xml.length; i++) {
+            final byte b = xml[i];
+            if (quote != 0) {
+                if (b == quote) {
+                    quote = 0;
+                }
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                end = i + 1;
+            }
+        }
+        if (end < 0) {
+            throw new XMLDeserializationException("Unterminated start tag at " + start);
+        }
+        return end;
+    }
+
+    private int skipPast(final int start, final String token) throws XMLDeserializationException {
+        final int index = indexOf(start, token);
+        if (index < 0) {
+            throw new XMLDeserializationException("Missing " + token + " after " + start);
+        }
+        return index + token.length();
+    }
+
+    private int indexOf(final int start, final String token) {
+        int index = -1;
+        for (int i = start; index < 0 && i <= xml.length - token.length(); i++) {
+            if (startsWith(i, token)) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private boolean startsWith(final int start, final String token) {
+        boolean match = start + token.length() <= xml.length;
+        for (int i = 0; match && i < token.length(); i++) {
+            match = xml[start + i] == token.charAt(i);
+        }
+        return match;
+    }
+
+    private String latin1(final int start, final int end) {
+        final char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = (char) (xml[i] & 0xFF);
+        }
+        return new String(chars);
+    }
+
+}
@@ -17,7 +17,7 @@ package nl.knaw.dans.pf.language.emd.types;
 
 import java.io.Serializable;
 
-public class ApplicationSpecific implements Serializable {
+public class ApplicationSpecific implements Serializable, Modifiable {
 
     public enum MetadataFormat {
         UNSPECIFIED, SOCIOLOGY, HISTORY, ARCHAEOLOGY, LIFESCIENCE, LANGUAGE_LITERATURE, ANY_DISCIPLINE;
@@ -33,22 +33,34 @@ public class ApplicationSpecific implements Serializable {
     private MetadataFormat metadataFormat = MetadataFormat.DEFAULT;
     private PakbonStatus pakbonStatus = PakbonStatus.NOT_IMPORTED;
 
+    // 0 if modified since the revision was last asked for.
+    private transient long revision;
+
     public MetadataFormat getMetadataFormat() {
         return metadataFormat;
     }
 
     public void setMetadataFormat(MetadataFormat metadataFormat) {
         this.metadataFormat = metadataFormat;
+        revision = 0;
     }
 
     public void setPakbonStatus(PakbonStatus status) {
         pakbonStatus = status;
+        revision = 0;
     }
 
     public PakbonStatus getPakbonStatus() {
         return pakbonStatus;
     }
 
+    public long getRevision() {
+        if (revision == 0) {
+            revision = Revisions.next();
+        }
+        return revision;
+    }
+
     public static MetadataFormat formatForName(String name) {
         return MetadataFormat.valueOf(name.toUpperCase());
     }
@@ -30,7 +30,7 @@ import org.apache.commons.lang.StringUtils;
  * @see <a href="http://www.rug.nl/bibliotheek/informatie/digitaleBibliotheek/daikort">digitaleBibliotheek/daikort</a>
  * @author ecco
  */
-public class Author implements MetadataItem {
+public class Author implements MetadataItem, Modifiable {
 
     /**
      * The default identification system. {@value}
@@ -51,6 +51,9 @@ public class Author implements MetadataItem {
     private String entityId;
     private String scheme;
 
+    // 0 if modified since the revision was last asked for.
+    private transient long revision;
+
     /**
      * Constructs an Author.
      */
@@ -105,6 +108,7 @@ public class Author implements MetadataItem {
      */
     public final void setTitle(final String title) {
         this.title = title == null ? null : title.trim();
+        revision = 0;
     }
 
     /**
@@ -124,6 +128,7 @@ public class Author implements MetadataItem {
      */
     public final void setInitials(final String initials) {
         this.initials = initials == null ? null : initials.trim().toUpperCase();
+        revision = 0;
     }
 
     /**
@@ -143,6 +148,7 @@ public class Author implements MetadataItem {
      */
     public final void setPrefix(final String prefix) {
         this.prefix = prefix;
+        revision = 0;
     }
 
     /**
@@ -162,6 +168,7 @@ public class Author implements MetadataItem {
      */
     public final void setSurname(final String surname) {
         this.surname = surname == null ? null : surname.trim();
+        revision = 0;
     }
 
     public String getOrganization() {
@@ -170,6 +177,7 @@ public class Author implements MetadataItem {
 
     public void setOrganization(String organization) {
         this.organization = organization;
+        revision = 0;
     }
 
     /**
@@ -189,6 +197,7 @@ public class Author implements MetadataItem {
      */
     public void setScheme(final String scheme) {
         this.scheme = scheme;
+        revision = 0;
     }
 
     /**
@@ -208,6 +217,7 @@ public class Author implements MetadataItem {
      */
     public void setIdentificationSystem(final URI identificationSystem) {
         this.identificationSystem = identificationSystem;
+        revision = 0;
     }
 
     /**
@@ -230,6 +240,7 @@ public class Author implements MetadataItem {
         if (scheme == null) {
             scheme = DEFAULT_SCHEME;
         }
+        revision = 0;
     }
 
     /**
@@ -243,6 +254,17 @@ public class Author implements MetadataItem {
     public void setEntityId(final String entityId, final String scheme) {
         this.entityId = entityId;
         this.scheme = scheme;
+        revision = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getRevision() {
+        if (revision == 0) {
+            revision = Revisions.next();
+        }
+        return revision;
     }
 
     public boolean isComplete() {
@@ -199,6 +199,7 @@ public final class BasicDate extends LanguageTokenizedString {
     public void setScheme(final EmdConstants.DateScheme scheme) throws IllegalStateException {
         if (isValidScheme(scheme, getValue())) {
             this.scheme = scheme;
+            modified();
         } else {
             throw new IllegalStateException("The value '" + getValue() + "' is not in compliance with the scheme '" + scheme + "'");
         }
@@ -213,7 +214,7 @@ public final class BasicDate extends LanguageTokenizedString {
      *        the string to test
      * @return <code>true</code> if valid, <code>false </code> otherwise
      */
-    public static synchronized boolean isValidScheme(final EmdConstants.DateScheme schemeToTest, final String withValue) {
+    public static boolean isValidScheme(final EmdConstants.DateScheme schemeToTest, final String withValue) {
         boolean isValid = true;
         if (EmdConstants.DateScheme.W3CDTF.equals(schemeToTest)) {
             isValid = isISODateString(withValue);
@@ -228,7 +229,7 @@ public final class BasicDate extends LanguageTokenizedString {
      *        the string to test
      * @return <code>true</code> if valid, <code>false </code> otherwise
      */
-    public static synchronized boolean isISODateString(final String toTest) {
+    public static boolean isISODateString(final String toTest) {
         boolean isIso = false;
         if (toTest != null) {
             try {
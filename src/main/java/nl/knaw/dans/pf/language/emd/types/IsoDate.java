@@ -195,6 +195,7 @@ public class IsoDate extends SimpleElementImpl<DateTime> {
     public void setValueAsString(final String iso8601String) throws InvalidDateStringException {
         value = convert(iso8601String);
         format = forString(iso8601String);
+        modified();
     }
 
     /**
@@ -249,6 +250,7 @@ public class IsoDate extends SimpleElementImpl<DateTime> {
      */
     public void setFormat(final Format format) {
         this.format = format;
+        modified();
     }
 
     /**
@@ -32,6 +32,8 @@ public abstract class LanguageTokenizedString extends SimpleElementImpl<String>
      */
     public static final String LANGUAGE_TOKEN = "([a-zA-Z]{2,3}|[il]-[a-zA-Z]+|[xX]-[a-zA-Z]{1,8})(-[a-zA-Z]{2,8})*";
 
+    private static final Pattern LANGUAGE_TOKEN_PATTERN = Pattern.compile(LANGUAGE_TOKEN);
+
     /**
      * Serial version id.
      */
@@ -65,8 +67,8 @@ public abstract class LanguageTokenizedString extends SimpleElementImpl<String>
      *        two or three letter language code, optionally followed by a hyphen and a two or three letter country code
      * @return <code>true</code> if valid, <code>false</code> otherwise
      */
-    public static synchronized boolean isValidLanguageToken(final String token) {
-        return token == null ? false : Pattern.matches(LANGUAGE_TOKEN, token);
+    public static boolean isValidLanguageToken(final String token) {
+        return token == null ? false : LANGUAGE_TOKEN_PATTERN.matcher(token).matches();
     }
 
     /**
@@ -179,6 +181,7 @@ public abstract class LanguageTokenizedString extends SimpleElementImpl<String>
     public final void setLanguage(final String language) throws InvalidLanguageTokenException {
         if (language == null || "".equals(language) || isValidLanguageToken(language)) {
             this.language = language;
+            modified();
         } else {
             throw new InvalidLanguageTokenException("The token '" + language + "' is not a valid language token.");
         }
@@ -203,6 +206,7 @@ public abstract class LanguageTokenizedString extends SimpleElementImpl<String>
      */
     public final void setLanguage(final Locale locale) throws InvalidLanguageTokenException {
         this.language = getLanguageToken(locale);
+        modified();
     }
 
     /**
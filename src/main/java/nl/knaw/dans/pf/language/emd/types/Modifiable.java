@@ -0,0 +1,32 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.types;
+
+/**
+ * Something that keeps track of its modifications. The revision changes when the object, or an object it holds, is modified through its methods; revisions
+ * are taken from {@link Revisions#next()}, so they also differ between objects. Callers that want to know if anything changed compare the revision with one
+ * they obtained earlier, instead of comparing the content.
+ */
+public interface Modifiable {
+
+    /**
+     * Get the current revision of this object.
+     * 
+     * @return a value that differs from earlier revisions if this object was modified in between
+     */
+    long getRevision();
+
+}
@@ -23,7 +23,7 @@ import java.net.URI;
  * 
  * @author ecco
  */
-public class Relation implements MetadataItem {
+public class Relation implements MetadataItem, Modifiable {
 
     private static final long serialVersionUID = 2727329285153906751L;
 
@@ -35,6 +35,9 @@ public class Relation implements MetadataItem {
 
     private URI subjectLink;
 
+    // 0 if modified since the revision was last asked for.
+    private transient long revision;
+
     /**
      * Constructor.
      */
@@ -92,6 +95,7 @@ public class Relation implements MetadataItem {
      */
     public void setEmphasis(final boolean emphasis) {
         this.emphasis = emphasis;
+        revision = 0;
     }
 
     /**
@@ -111,6 +115,7 @@ public class Relation implements MetadataItem {
      */
     public void setSubjectTitle(final BasicString subjectTitle) {
         this.subjectTitle = subjectTitle;
+        revision = 0;
     }
 
     /**
@@ -121,6 +126,7 @@ public class Relation implements MetadataItem {
      */
     public void setSubjectTitle(final String title) {
         this.subjectTitle = new BasicString(title);
+        revision = 0;
     }
 
     /**
@@ -140,6 +146,7 @@ public class Relation implements MetadataItem {
      */
     public void setSubjectIdentifier(final BasicIdentifier subjectIdentifier) {
         this.subjectIdentifier = subjectIdentifier;
+        revision = 0;
     }
 
     /**
@@ -159,6 +166,7 @@ public class Relation implements MetadataItem {
      */
     public void setSubjectLink(final URI subjectLink) {
         this.subjectLink = subjectLink;
+        revision = 0;
     }
 
     /**
@@ -172,6 +180,16 @@ public class Relation implements MetadataItem {
                 + (subjectLink == null ? "" : "URI=" + subjectLink);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long getRevision() {
+        if (revision == 0) {
+            revision = Revisions.next();
+        }
+        return Revisions.fold(Revisions.fold(revision, subjectTitle), subjectIdentifier);
+    }
+
     public boolean isComplete() {
         return true;
     }
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.types;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source and arithmetic of the revisions of {@link Modifiable} objects. A leaf object takes a new revision from {@link #next()} when it was modified; an object
+ * that holds others folds their revisions into its own with {@link #fold(long, Object)}.
+ */
+public final class Revisions {
+
+    private static final AtomicLong LAST = new AtomicLong();
+
+    // odd constant of the 64-bit golden ratio, spreads the bits of the folded revisions
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private Revisions() {
+        // never instantiate.
+    }
+
+    /**
+     * Get a revision that was not handed out before.
+     * 
+     * @return a new revision, never 0
+     */
+    public static long next() {
+        return LAST.incrementAndGet();
+    }
+
+    /**
+     * Fold the revision of the given object into the given revision. A {@link Modifiable} contributes its revision, a list the revisions of its elements in
+     * order and <code>null</code> a constant. Any other object cannot tell if it was modified and contributes a new revision, so the result never equals an
+     * earlier one.
+     * 
+     * @param revision
+     *        the revision folded so far
+     * @param object
+     *        the object to fold in, may be <code>null</code>
+     * @return the folded revision
+     */
+    public static long fold(final long revision, final Object object) {
+        long folded;
+        if (object == null) {
+            folded = mix(revision, 0);
+        } else if (object instanceof Modifiable) {
+            folded = mix(revision, ((Modifiable) object).getRevision());
+        } else if (object instanceof List<?>) {
+            folded = mix(revision, ((List<?>) object).size());
+            for (Object element : (List<?>) object) {
+                folded = fold(folded, element);
+            }
+        } else {
+            folded = mix(revision, next());
+        }
+        return folded;
+    }
+
+    private static long mix(final long revision, final long value) {
+        final long mixed = (revision ^ value) * MULTIPLIER;
+        return mixed ^ (mixed >>> 32);
+    }
+
+}
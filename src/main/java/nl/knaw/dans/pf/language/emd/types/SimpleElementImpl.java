@@ -22,7 +22,7 @@ package nl.knaw.dans.pf.language.emd.types;
  * @param <T>
  *        the wrapped type
  */
-public abstract class SimpleElementImpl<T> implements SimpleElement<T>, MetadataItem {
+public abstract class SimpleElementImpl<T> implements SimpleElement<T>, MetadataItem, Modifiable {
 
     /**
      *
@@ -42,6 +42,9 @@ public abstract class SimpleElementImpl<T> implements SimpleElement<T>, Metadata
 
     // ecco: CHECKSTYLE: ON
 
+    // 0 if modified since the revision was last asked for.
+    private transient long revision;
+
     /**
      * {@inheritDoc}
      */
@@ -54,6 +57,7 @@ public abstract class SimpleElementImpl<T> implements SimpleElement<T>, Metadata
      */
     public void setValue(final T value) {
         this.value = value;
+        modified();
     }
 
     /**
@@ -69,6 +73,24 @@ public abstract class SimpleElementImpl<T> implements SimpleElement<T>, Metadata
      */
     public void setSchemeId(String schemeId) {
         this.schemeId = schemeId;
+        modified();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getRevision() {
+        if (revision == 0) {
+            revision = Revisions.next();
+        }
+        return revision;
+    }
+
+    /**
+     * Mark this element as modified. Subclasses call this from methods that change their own fields.
+     */
+    protected final void modified() {
+        revision = 0;
     }
 
     /**
@@ -22,7 +22,7 @@ import java.io.Serializable;
  * 
  * @author ecco
  */
-public class Spatial implements MetadataItem {
+public class Spatial implements MetadataItem, Modifiable {
 
     /**
      *
@@ -35,6 +35,9 @@ public class Spatial implements MetadataItem {
 
     private Box box;
 
+    // 0 if modified since the revision was last asked for.
+    private transient long revision;
+
     /**
      * Constructor.
      */
@@ -87,6 +90,7 @@ public class Spatial implements MetadataItem {
      */
     public void setPlace(final BasicString place) {
         this.place = place;
+        revision = 0;
     }
 
     /**
@@ -112,6 +116,7 @@ public class Spatial implements MetadataItem {
         } else {
             this.point = point;
         }
+        revision = 0;
     }
 
     /**
@@ -137,6 +142,7 @@ public class Spatial implements MetadataItem {
         } else {
             this.box = box;
         }
+        revision = 0;
     }
 
     @Override
@@ -181,12 +187,22 @@ public class Spatial implements MetadataItem {
         return complete;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public long getRevision() {
+        if (revision == 0) {
+            revision = Revisions.next();
+        }
+        return Revisions.fold(Revisions.fold(Revisions.fold(revision, place), point), box);
+    }
+
     /**
      * Super class for Box and Point, both having a scheme attribute.
      * 
      * @author ecco
      */
-    public static class Locator implements Serializable {
+    public static class Locator implements Serializable, Modifiable {
 
         private static final long serialVersionUID = 1359989050701264576L;
 
@@ -197,6 +213,9 @@ public class Spatial implements MetadataItem {
 
         // ecco: CHECKSTYLE: ON
 
+        // 0 if modified since the revision was last asked for.
+        private transient long revision;
+
         /**
          * Constructor.
          */
@@ -232,6 +251,7 @@ public class Spatial implements MetadataItem {
          */
         public void setScheme(final String scheme) {
             this.scheme = scheme;
+            revision = 0;
         }
 
         public String getSchemeId() {
@@ -240,6 +260,24 @@ public class Spatial implements MetadataItem {
 
         public void setSchemeId(String schemeId) {
             this.schemeId = schemeId;
+            revision = 0;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public long getRevision() {
+            if (revision == 0) {
+                revision = Revisions.next();
+            }
+            return revision;
+        }
+
+        /**
+         * Mark this locator as modified. Subclasses call this from methods that change their own fields.
+         */
+        protected final void modified() {
+            revision = 0;
         }
 
         /**
@@ -306,6 +344,7 @@ public class Spatial implements MetadataItem {
          */
         public void setX(final String x) {
             this.x = x;
+            modified();
         }
 
         /**
@@ -325,6 +364,7 @@ public class Spatial implements MetadataItem {
          */
         public void setY(final String y) {
             this.y = y;
+            modified();
         }
 
         /**
@@ -405,6 +445,7 @@ public class Spatial implements MetadataItem {
          */
         public void setNorth(final String north) {
             this.north = north;
+            modified();
         }
 
         /**
@@ -424,6 +465,7 @@ public class Spatial implements MetadataItem {
          */
         public void setEast(final String east) {
             this.east = east;
+            modified();
         }
 
         /**
@@ -443,6 +485,7 @@ public class Spatial implements MetadataItem {
          */
         public void setSouth(final String south) {
             this.south = south;
+            modified();
         }
 
         /**
@@ -462,6 +505,7 @@ public class Spatial implements MetadataItem {
          */
         public void setWest(final String west) {
             this.west = west;
+            modified();
         }
 
         /**
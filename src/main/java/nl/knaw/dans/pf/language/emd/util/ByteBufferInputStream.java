@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * InputStream that reads the remaining bytes of a {@link ByteBuffer}. Reading advances the position of the buffer.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructs a stream that reads from the given buffer, starting at its position.
+     * 
+     * @param buffer
+     *        the buffer to read from
+     */
+    public ByteBufferInputStream(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) {
+        int count = -1;
+        if (length == 0) {
+            count = 0;
+        } else if (buffer.hasRemaining()) {
+            count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+        }
+        return count;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long skip(final long n) {
+        final int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + count);
+        return count;
+    }
+
+}
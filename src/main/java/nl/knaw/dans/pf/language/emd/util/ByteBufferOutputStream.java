@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.util;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * OutputStream that writes to a {@link ByteBuffer}. If the buffer is full, it is replaced by a larger one of the same kind (heap or direct), so always get
+ * the result with {@link #getBuffer()}.
+ */
+public class ByteBufferOutputStream extends OutputStream {
+
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs a stream that writes to the given buffer, starting at its position.
+     * 
+     * @param buffer
+     *        the buffer to write to
+     */
+    public ByteBufferOutputStream(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Get the buffer written to. Its position is just after the last byte written.
+     * 
+     * @return the buffer written to, which is not the buffer this stream was constructed with if that one was too small
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final int b) {
+        ensureRemaining(1);
+        buffer.put((byte) b);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) {
+        ensureRemaining(length);
+        buffer.put(bytes, offset, length);
+    }
+
+    private void ensureRemaining(final int length) {
+        if (buffer.remaining() < length) {
+            final int capacity = Math.max(buffer.capacity() * 2, buffer.position() + length);
+            final ByteBuffer larger = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+}
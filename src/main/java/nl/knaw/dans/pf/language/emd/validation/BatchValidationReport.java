@@ -0,0 +1,263 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import nl.knaw.dans.pf.language.emd.binding.EmdBatch;
+import nl.knaw.dans.pf.language.xml.validation.XMLErrorHandler;
+
+import org.xml.sax.SAXParseException;
+
+/**
+ * Aggregated result of validating a batch of easymetadata records with the {@link EMDValidator}. It counts the records that were valid, invalid or could not
+ * be validated at all, counts the errors per error type and keeps the records with the most errors. The details of every record go to the callback given to
+ * the batch, not to this report.
+ * <p/>
+ * The type of a schema error is the code the validator puts in front of its message, for instance <code>cvc-complex-type.2.4.a</code>; the type of a record
+ * that could not be validated is the class name of the exception.
+ * 
+ * @author ecco
+ */
+public class BatchValidationReport {
+
+    /**
+     * Default number of worst offenders kept: {@value} .
+     */
+    public static final int DEFAULT_MAX_OFFENDERS = 10;
+
+    private static final Comparator<Offender> FEWEST_ERRORS_FIRST = new Comparator<Offender>() {
+
+        public int compare(final Offender o1, final Offender o2) {
+            return o1.errorCount < o2.errorCount ? -1 : o1.errorCount == o2.errorCount ? o2.index - o1.index : 1;
+        }
+    };
+
+    /**
+     * A record with errors.
+     */
+    public static class Offender {
+
+        private final int index;
+        private final String name;
+        private final int errorCount;
+        private final String firstError;
+
+        Offender(final int index, final String name, final int errorCount, final String firstError) {
+            this.index = index;
+            this.name = name;
+            this.errorCount = errorCount;
+            this.firstError = firstError;
+        }
+
+        /**
+         * Get the index of the record in the batch.
+         * 
+         * @return the index of the record
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the number of errors and fatal errors of the record.
+         * 
+         * @return the number of errors
+         */
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        public String getFirstError() {
+            return firstError;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + errorCount + " errors): " + firstError;
+        }
+    }
+
+    private final int maxOffenders;
+
+    private final Map<String, Integer> errorTypeCounts = new TreeMap<String, Integer>();
+
+    // min-heap of the worst offenders, the mildest on top
+    private final PriorityQueue<Offender> offenders;
+
+    private int validCount;
+    private int invalidCount;
+    private int failedCount;
+    private int errorCount;
+    private int warningCount;
+    private EmdBatch.Statistics statistics;
+
+    BatchValidationReport(final int maxOffenders) {
+        this.maxOffenders = maxOffenders;
+        this.offenders = new PriorityQueue<Offender>(Math.max(1, maxOffenders + 1), FEWEST_ERRORS_FIRST);
+    }
+
+    void add(final int index, final String name, final XMLErrorHandler handler) {
+        final int errors = handler.getErrors().size() + handler.getFatalErrors().size();
+        warningCount += handler.getWarnings().size();
+        if (errors == 0) {
+            validCount++;
+        } else {
+            invalidCount++;
+            errorCount += errors;
+            for (final SAXParseException e : handler.getFatalErrors()) {
+                count(errorType(e.getMessage()));
+            }
+            for (final SAXParseException e : handler.getErrors()) {
+                count(errorType(e.getMessage()));
+            }
+            final SAXParseException first = handler.getFatalErrors().isEmpty() ? handler.getErrors().get(0) : handler.getFatalErrors().get(0);
+            offend(new Offender(index, name, errors, first.getMessage()));
+        }
+    }
+
+    void addFailure(final int index, final String name, final Exception error) {
+        failedCount++;
+        count(error.getClass().getName());
+    }
+
+    void setStatistics(final EmdBatch.Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    private void count(final String errorType) {
+        final Integer count = errorTypeCounts.get(errorType);
+        errorTypeCounts.put(errorType, count == null ? 1 : count + 1);
+    }
+
+    private void offend(final Offender offender) {
+        if (maxOffenders > 0) {
+            offenders.add(offender);
+            if (offenders.size() > maxOffenders) {
+                offenders.poll();
+            }
+        }
+    }
+
+    static String errorType(final String message) {
+        String type = message == null ? "" : message;
+        final int colon = type.indexOf(':');
+        if (colon > 0 && type.substring(0, colon).indexOf(' ') < 0) {
+            type = type.substring(0, colon);
+        }
+        return type;
+    }
+
+    /**
+     * Did all records of the batch pass validation.
+     * 
+     * @return <code>true</code> if all records were valid, <code>false</code> otherwise
+     */
+    public boolean passed() {
+        return invalidCount == 0 && failedCount == 0;
+    }
+
+    public int getRecordCount() {
+        return validCount + invalidCount + failedCount;
+    }
+
+    public int getValidCount() {
+        return validCount;
+    }
+
+    public int getInvalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * Get the number of records that could not be validated, for instance because they could not be read.
+     * 
+     * @return the number of records that could not be validated
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Get the total number of errors and fatal errors of the invalid records.
+     * 
+     * @return the total number of errors
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public int getWarningCount() {
+        return warningCount;
+    }
+
+    /**
+     * Get the number of errors per error type, ordered by type.
+     * 
+     * @return unmodifiable map of error type to number of errors
+     */
+    public Map<String, Integer> getErrorTypeCounts() {
+        return Collections.unmodifiableMap(errorTypeCounts);
+    }
+
+    /**
+     * Get the records with the most errors, the worst first.
+     * 
+     * @return the worst offenders
+     */
+    public List<Offender> getWorstOffenders() {
+        final List<Offender> list = new ArrayList<Offender>(offenders);
+        Collections.sort(list, Collections.reverseOrder(FEWEST_ERRORS_FIRST));
+        return list;
+    }
+
+    /**
+     * Get counts and timing of the batch.
+     * 
+     * @return statistics of the batch
+     */
+    public EmdBatch.Statistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(getRecordCount()).append(" records: ").append(validCount).append(" valid, ").append(invalidCount).append(" invalid, ")
+                .append(failedCount).append(" failed, ").append(errorCount).append(" errors, ").append(warningCount).append(" warnings");
+        if (statistics != null) {
+            builder.append(" (").append(statistics).append(")");
+        }
+        for (final Map.Entry<String, Integer> entry : errorTypeCounts.entrySet()) {
+            builder.append("\n\t").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        for (final Offender offender : getWorstOffenders()) {
+            builder.append("\n\t").append(offender);
+        }
+        return builder.toString();
+    }
+
+}
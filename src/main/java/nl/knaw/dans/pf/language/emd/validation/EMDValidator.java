@@ -15,11 +15,29 @@
  */
 package nl.knaw.dans.pf.language.emd.validation;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
 
 import nl.knaw.dans.pf.language.emd.EasyMetadata;
-import nl.knaw.dans.pf.language.emd.binding.EmdMarshaller;
+import nl.knaw.dans.pf.language.emd.binding.EmdBatch;
+import nl.knaw.dans.pf.language.emd.binding.EmdBindingEngine;
+import nl.knaw.dans.pf.language.emd.binding.EmdSAXSource;
+import nl.knaw.dans.pf.language.emd.util.ByteBufferInputStream;
+import nl.knaw.dans.pf.language.xml.exc.SchemaCreationException;
+import nl.knaw.dans.pf.language.xml.exc.ValidatorException;
 import nl.knaw.dans.pf.language.xml.exc.XMLException;
 import nl.knaw.dans.pf.language.xml.validation.AbstractValidator;
 import nl.knaw.dans.pf.language.xml.validation.XMLErrorHandler;
@@ -28,6 +46,10 @@ import org.xml.sax.SAXException;
 
 /**
  * Utility class for validating easymetadata.
+ * <p/>
+ * The schema is resolved through the {@link SchemaCatalog#emd() catalog} of schemas shipped with the library, so it is read from the class path where
+ * possible, and compiled once. The compiled schema is shared; each thread reuses its own {@link Validator}. Batches of records are validated concurrently on
+ * the threads of an {@link EmdBatch}.
  * 
  * @author ecco
  */
@@ -42,7 +64,12 @@ public final class EMDValidator extends AbstractValidator {
 
     private static final EMDValidator instance = new EMDValidator();
 
-    private String schemaLocation;
+    private static final ThreadLocal<ThreadValidator> VALIDATORS = new ThreadLocal<ThreadValidator>();
+
+    private volatile String schemaLocation;
+
+    // The compiled schema and the location it was compiled from.
+    private volatile CompiledSchema compiledSchema;
 
     // singleton
     private EMDValidator() {
@@ -79,8 +106,272 @@ public final class EMDValidator extends AbstractValidator {
         this.schemaLocation = schemaLocation;
     }
 
+    /**
+     * Get the schema, compiled once from the shipped schemas where possible. The schema is thread safe. Parameter <code>version</code> is silently ignored.
+     */
+    @Override
+    public Schema getSchema(final String version) throws SchemaCreationException {
+        final String location = getSchemaLocation();
+        CompiledSchema compiled = compiledSchema;
+        if (compiled == null || !compiled.location.equals(location)) {
+            synchronized (this) {
+                compiled = compiledSchema;
+                if (compiled == null || !compiled.location.equals(location)) {
+                    compiled = new CompiledSchema(location, compileSchema(location));
+                    compiledSchema = compiled;
+                }
+            }
+        }
+        return compiled.schema;
+    }
+
+    private static Schema compileSchema(final String location) throws SchemaCreationException {
+        final SchemaCatalog catalog = SchemaCatalog.emd();
+        final SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        factory.setResourceResolver(catalog);
+        Schema schema;
+        StreamSource source = null;
+        try {
+            source = catalog.getSource(location);
+            schema = factory.newSchema(source);
+        }
+        catch (final IOException e) {
+            throw new SchemaCreationException(e);
+        }
+        catch (final SAXException e) {
+            throw new SchemaCreationException(e);
+        }
+        finally {
+            close(source);
+        }
+        return schema;
+    }
+
+    private static void close(final StreamSource source) {
+        final InputStream in = source == null ? null : source.getInputStream();
+        if (in != null) {
+            try {
+                in.close();
+            }
+            // ecco: CHECKSTYLE: OFF
+            catch (final IOException e) {
+                // nothing to do
+            }
+            // ecco: CHECKSTYLE: ON
+        }
+    }
+
+    /**
+     * Validate the given source with the validator of the current thread.
+     * 
+     * @param xml
+     *        the source to validate
+     * @return the result of the validation
+     * @throws XMLException
+     *         if the schema cannot be compiled or the source cannot be read
+     * @throws SAXException
+     *         if the validator throws it
+     */
+    public XMLErrorHandler validate(final Source xml) throws XMLException, SAXException {
+        final Schema schema = getSchema(null);
+        ThreadValidator threadValidator = VALIDATORS.get();
+        if (threadValidator == null || threadValidator.schema != schema) {
+            threadValidator = new ThreadValidator(schema);
+            VALIDATORS.set(threadValidator);
+        }
+        final Validator validator = threadValidator.validator;
+        final XMLErrorHandler handler = new XMLErrorHandler();
+        validator.reset();
+        validator.setErrorHandler(handler);
+        try {
+            validator.validate(xml);
+        }
+        catch (final IOException e) {
+            throw new ValidatorException(e);
+        }
+        finally {
+            // do not hold on to the handler
+            validator.setErrorHandler(null);
+        }
+        return handler;
+    }
+
+    /**
+     * Validate the given easymetadata. It is not serialized: an {@link EmdSAXSource} feeds it to the validator as SAX events.
+     * 
+     * @param emd
+     *        the easymetadata to validate
+     * @return the result of the validation
+     * @throws XMLException
+     *         if the schema cannot be compiled
+     * @throws SAXException
+     *         if the validator throws it
+     */
     public XMLErrorHandler validate(EasyMetadata emd) throws XMLException, SAXException {
-        return validate(new EmdMarshaller(emd).getXmlString(), null);
+        return validate(new EmdSAXSource(emd));
+    }
+
+    /**
+     * Validate the remaining bytes of the given buffer, for instance a buffer filled by {@link EmdBindingEngine#marshal(nl.knaw.dans.pf.language.emd.EmdBean,
+     * ByteBuffer)}. The position of the buffer is not changed.
+     * 
+     * @param xml
+     *        buffer with easymetadata as xml
+     * @return the result of the validation
+     * @throws XMLException
+     *         if the xml could not be validated
+     * @throws SAXException
+     *         if the validator throws it
+     */
+    public XMLErrorHandler validate(ByteBuffer xml) throws XMLException, SAXException {
+        return validate(new StreamSource(new ByteBufferInputStream(xml.duplicate())));
+    }
+
+    /**
+     * Validate the documents of the given inputs concurrently, for instance the files of a directory or the entries of a zip file.
+     * 
+     * @param batch
+     *        the batch that bounds the threads and the records in flight
+     * @param inputs
+     *        the inputs to validate
+     * @param callback
+     *        receives the result of every record in input order, may be <code>null</code>
+     * @return aggregated report of the batch
+     * @throws XMLException
+     *         if the schema cannot be compiled
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting
+     * @see EmdBatch#inputs(java.io.File)
+     * @see EmdBatch#inputs(java.util.zip.ZipFile)
+     */
+    public BatchValidationReport validate(final EmdBatch batch, final Iterator<EmdBatch.Input> inputs, final EmdBatch.Callback<? super XMLErrorHandler> callback)
+            throws XMLException, InterruptedException
+    {
+        return validate(batch, inputs, new EmdBatch.Task<EmdBatch.Input, XMLErrorHandler>() {
+
+            public String getName(final EmdBatch.Input input) {
+                return input.getName();
+            }
+
+            public XMLErrorHandler process(final EmdBatch.Input input) throws Exception {
+                final InputStream in = input.open();
+                try {
+                    return validate(new StreamSource(in, input.getName()));
+                }
+                finally {
+                    in.close();
+                }
+            }
+        }, callback);
+    }
+
+    /**
+     * Validate the given named easymetadata concurrently.
+     * 
+     * @param batch
+     *        the batch that bounds the threads and the records in flight
+     * @param records
+     *        the easymetadata to validate by name
+     * @param callback
+     *        receives the result of every record in input order, may be <code>null</code>
+     * @return aggregated report of the batch
+     * @throws XMLException
+     *         if the schema cannot be compiled
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting
+     */
+    public BatchValidationReport validateRecords(final EmdBatch batch, final Iterator<? extends Map.Entry<String, ? extends EasyMetadata>> records,
+            final EmdBatch.Callback<? super XMLErrorHandler> callback) throws XMLException, InterruptedException
+    {
+        return validate(batch, records, new EmdBatch.Task<Map.Entry<String, ? extends EasyMetadata>, XMLErrorHandler>() {
+
+            public String getName(final Map.Entry<String, ? extends EasyMetadata> record) {
+                return record.getKey();
+            }
+
+            public XMLErrorHandler process(final Map.Entry<String, ? extends EasyMetadata> record) throws Exception {
+                return validate(record.getValue());
+            }
+        }, callback);
+    }
+
+    /**
+     * Validate the given named xml documents concurrently, for instance the records of an
+     * {@link nl.knaw.dans.pf.language.emd.binding.EmdArchiveReader#iterator() archive}.
+     * 
+     * @param batch
+     *        the batch that bounds the threads and the records in flight
+     * @param documents
+     *        the documents to validate by name
+     * @param callback
+     *        receives the result of every record in input order, may be <code>null</code>
+     * @return aggregated report of the batch
+     * @throws XMLException
+     *         if the schema cannot be compiled
+     * @throws InterruptedException
+     *         if the calling thread is interrupted while waiting
+     */
+    public BatchValidationReport validateDocuments(final EmdBatch batch, final Iterator<? extends Map.Entry<String, byte[]>> documents,
+            final EmdBatch.Callback<? super XMLErrorHandler> callback) throws XMLException, InterruptedException
+    {
+        return validate(batch, documents, new EmdBatch.Task<Map.Entry<String, byte[]>, XMLErrorHandler>() {
+
+            public String getName(final Map.Entry<String, byte[]> document) {
+                return document.getKey();
+            }
+
+            public XMLErrorHandler process(final Map.Entry<String, byte[]> document) throws Exception {
+                return validate(new StreamSource(new ByteArrayInputStream(document.getValue()), document.getKey()));
+            }
+        }, callback);
+    }
+
+    private <S> BatchValidationReport validate(final EmdBatch batch, final Iterator<? extends S> sources, final EmdBatch.Task<S, XMLErrorHandler> task,
+            final EmdBatch.Callback<? super XMLErrorHandler> callback) throws XMLException, InterruptedException
+    {
+        // compile the schema before the workers need it, so that a broken schema fails the batch once
+        getSchema(null);
+        final BatchValidationReport report = new BatchValidationReport(BatchValidationReport.DEFAULT_MAX_OFFENDERS);
+        report.setStatistics(batch.run(sources, task, new EmdBatch.Callback<XMLErrorHandler>() {
+
+            public void onResult(final int index, final String name, final XMLErrorHandler result) {
+                report.add(index, name, result);
+                if (callback != null) {
+                    callback.onResult(index, name, result);
+                }
+            }
+
+            public void onError(final int index, final String name, final Exception error) {
+                report.addFailure(index, name, error);
+                if (callback != null) {
+                    callback.onError(index, name, error);
+                }
+            }
+        }));
+        return report;
+    }
+
+    private static final class CompiledSchema {
+
+        private final String location;
+        private final Schema schema;
+
+        CompiledSchema(final String location, final Schema schema) {
+            this.location = location;
+            this.schema = schema;
+        }
+    }
+
+    // A validator of one thread, with the schema it validates against.
+    private static final class ThreadValidator {
+
+        private final Schema schema;
+        private final Validator validator;
+
+        ThreadValidator(final Schema schema) {
+            this.schema = schema;
+            this.validator = schema.newValidator();
+        }
     }
 
 }
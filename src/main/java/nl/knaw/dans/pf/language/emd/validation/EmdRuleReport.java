@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
+
+/**
+ * Report of the {@link EmdRuleValidator}. Like the {@link nl.knaw.dans.pf.language.xml.validation.XMLErrorHandler} it collects the problems found, but each
+ * {@link Violation} points at the container, term and position of the offending item instead of at a line in a document.
+ * 
+ * @author ecco
+ */
+public class EmdRuleReport {
+
+    /**
+     * The rules checked by the {@link EmdRuleValidator}.
+     */
+    public enum Rule {
+        /**
+         * A {@link nl.knaw.dans.pf.language.emd.types.BasicDate} with scheme W3CDTF has a value that is not in compliance with ISO8601.
+         */
+        W3CDTF_DATE,
+        /**
+         * The language of a {@link nl.knaw.dans.pf.language.emd.types.LanguageTokenizedString} does not match
+         * {@link nl.knaw.dans.pf.language.emd.types.LanguageTokenizedString#LANGUAGE_TOKEN}.
+         */
+        LANGUAGE_TOKEN,
+        /**
+         * A {@link nl.knaw.dans.pf.language.emd.types.Spatial} has both a point and a box.
+         */
+        SPATIAL_EXCLUSIVE,
+        /**
+         * The point or box of a {@link nl.knaw.dans.pf.language.emd.types.Spatial} is not complete.
+         */
+        SPATIAL_COMPLETE,
+        /**
+         * An {@link nl.knaw.dans.pf.language.emd.types.Author} is not complete.
+         */
+        AUTHOR_COMPLETE,
+        /**
+         * The access rights do not name a known {@link nl.knaw.dans.common.lang.dataset.AccessCategory}.
+         */
+        ACCESS_CATEGORY
+    }
+
+    /**
+     * A violation of a rule by an item.
+     */
+    public static class Violation {
+
+        private final Rule rule;
+
+        private final MDContainer mdContainer;
+
+        private final Term term;
+
+        private final int index;
+
+        private final MetadataItem item;
+
+        private final String message;
+
+        Violation(final Rule rule, final MDContainer mdContainer, final Term term, final int index, final MetadataItem item, final String message) {
+            this.rule = rule;
+            this.mdContainer = mdContainer;
+            this.term = term;
+            this.index = index;
+            this.item = item;
+            this.message = message;
+        }
+
+        public Rule getRule() {
+            return rule;
+        }
+
+        public MDContainer getMdContainer() {
+            return mdContainer;
+        }
+
+        public Term getTerm() {
+            return term;
+        }
+
+        /**
+         * Get the position of the item in the list of its term.
+         * 
+         * @return the index of the item
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public MetadataItem getItem() {
+            return item;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return rule + " " + mdContainer + "/" + term.getNamespace().prefix + ":" + term.getName().termName + "[" + index + "]: " + message;
+        }
+
+    }
+
+    private final List<Violation> violations = new ArrayList<Violation>();
+
+    private final Map<Rule, Integer> counts = new EnumMap<Rule, Integer>(Rule.class);
+
+    /**
+     * Did the validated metadata pass all rules.
+     * 
+     * @return <code>true</code> if no violations were reported, <code>false</code> otherwise
+     */
+    public boolean passed() {
+        return violations.isEmpty();
+    }
+
+    /**
+     * Get the violations in the order they were found.
+     * 
+     * @return unmodifiable list of violations
+     */
+    public List<Violation> getViolations() {
+        return Collections.unmodifiableList(violations);
+    }
+
+    /**
+     * Get the violations of the given rule.
+     * 
+     * @param rule
+     *        the rule
+     * @return list of violations of the given rule
+     */
+    public List<Violation> getViolations(final Rule rule) {
+        final List<Violation> list = new ArrayList<Violation>();
+        for (Violation violation : violations) {
+            if (violation.getRule() == rule) {
+                list.add(violation);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Get the number of violations per rule. Rules that were not violated are not in the map.
+     * 
+     * @return unmodifiable map of rule to number of violations
+     */
+    public Map<Rule, Integer> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Add all violations of the given report to this report.
+     * 
+     * @param other
+     *        the report to add
+     */
+    public void addAll(final EmdRuleReport other) {
+        for (Violation violation : other.violations) {
+            add(violation);
+        }
+    }
+
+    void report(final Rule rule, final MDContainer mdContainer, final Term term, final int index, final MetadataItem item, final String message) {
+        add(new Violation(rule, mdContainer, term, index, item, message));
+    }
+
+    private void add(final Violation violation) {
+        violations.add(violation);
+        final Integer count = counts.get(violation.getRule());
+        counts.put(violation.getRule(), count == null ? 1 : count + 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(super.toString()).append(" passed=").append(passed());
+        for (Violation violation : violations) {
+            builder.append("\n\t").append(violation);
+        }
+        return builder.toString();
+    }
+
+}
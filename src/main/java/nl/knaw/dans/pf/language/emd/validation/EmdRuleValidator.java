@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.validation;
+
+import java.util.List;
+
+import nl.knaw.dans.common.lang.dataset.AccessCategory;
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EmdContainer;
+import nl.knaw.dans.pf.language.emd.EmdItemVisitor;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.types.Author;
+import nl.knaw.dans.pf.language.emd.types.BasicDate;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.EmdConstants;
+import nl.knaw.dans.pf.language.emd.types.EmdScheme;
+import nl.knaw.dans.pf.language.emd.types.LanguageTokenizedString;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
+import nl.knaw.dans.pf.language.emd.types.Spatial;
+import nl.knaw.dans.pf.language.emd.validation.EmdRuleReport.Rule;
+
+/**
+ * Validates the business rules of easymetadata that the types themselves know about, by walking the items of an {@link EasyMetadata} once. No xml is
+ * involved, so this is a fast complement to, not a replacement of, the schema validation of the {@link EMDValidator}. The rules are those of
+ * {@link EmdRuleReport.Rule}.
+ * <p/>
+ * Instances are stateless and can be shared between threads.
+ * 
+ * @author ecco
+ */
+public final class EmdRuleValidator {
+
+    private static final EmdRuleValidator instance = new EmdRuleValidator();
+
+    private EmdRuleValidator() {
+        // singleton
+    }
+
+    public static EmdRuleValidator instance() {
+        return instance;
+    }
+
+    /**
+     * Validate the business rules of the given easymetadata. Containers that were not instantiated are not instantiated by this method.
+     * 
+     * @param emd
+     *        the easymetadata to validate
+     * @return report of the violations found
+     */
+    public EmdRuleReport validate(final EasyMetadata emd) {
+        final EmdRuleReport report = new EmdRuleReport();
+        emd.accept(new RuleVisitor(report, null));
+        return report;
+    }
+
+    /**
+     * Validate the business rules of one container of an easymetadata.
+     * 
+     * @param mdContainer
+     *        the kind of container
+     * @param container
+     *        the container to validate
+     * @return report of the violations found
+     */
+    public EmdRuleReport validate(final MDContainer mdContainer, final EmdContainer container) {
+        final EmdRuleReport report = new EmdRuleReport();
+        container.accept(new RuleVisitor(report, mdContainer));
+        return report;
+    }
+
+    private static boolean isAccessCategory(final String value) {
+        boolean known = false;
+        if (value != null) {
+            try {
+                AccessCategory.valueOf(value.trim());
+                known = true;
+            }
+            // ecco: CHECKSTYLE: OFF
+            catch (final IllegalArgumentException e) {
+                known = false;
+            }
+            // ecco: CHECKSTYLE: ON
+        }
+        return known;
+    }
+
+    private static boolean isAccessCategoryScheme(final String schemeId) {
+        return schemeId == null || EmdScheme.COMMON_DCTERMS_ACCESSRIGHTS.getId().equals(schemeId)
+                || EmdScheme.ARCHAEOLOGY_DCTERMS_ACCESSRIGHTS.getId().equals(schemeId);
+    }
+
+    /**
+     * Applies the rules to the items it visits. Keeps track of the container and the position of the item in its term.
+     */
+    private static class RuleVisitor implements EmdItemVisitor {
+
+        private final EmdRuleReport report;
+
+        private MDContainer mdContainer;
+
+        private int index;
+
+        RuleVisitor(final EmdRuleReport report, final MDContainer mdContainer) {
+            this.report = report;
+            this.mdContainer = mdContainer;
+        }
+
+        public boolean startContainer(final MDContainer mdc, final EmdContainer container) {
+            mdContainer = mdc;
+            return true;
+        }
+
+        public boolean term(final Term term, final List<? extends MetadataItem> items) {
+            index = 0;
+            return true;
+        }
+
+        public boolean item(final Term term, final MetadataItem item) {
+            if (item instanceof LanguageTokenizedString) {
+                checkLanguage(term, (LanguageTokenizedString) item);
+            }
+            if (item instanceof BasicDate) {
+                checkDate(term, (BasicDate) item);
+            } else if (item instanceof Spatial) {
+                checkSpatial(term, (Spatial) item);
+            } else if (item instanceof Author) {
+                checkAuthor(term, (Author) item);
+            } else if (item instanceof BasicString && Term.Name.ACCESSRIGHTS.equals(term.getName()) && Term.Namespace.DCTERMS.equals(term.getNamespace())) {
+                checkAccessRights(term, (BasicString) item);
+            }
+            index++;
+            return true;
+        }
+
+        private void checkLanguage(final Term term, final LanguageTokenizedString item) {
+            final String language = item.getLanguage();
+            if (language != null && !LanguageTokenizedString.isValidLanguageToken(language)) {
+                report.report(Rule.LANGUAGE_TOKEN, mdContainer, term, index, item, "Invalid language token '" + language + "'");
+            }
+        }
+
+        private void checkDate(final Term term, final BasicDate item) {
+            if (EmdConstants.DateScheme.W3CDTF.equals(item.getScheme()) && !BasicDate.isISODateString(item.getValue())) {
+                report.report(Rule.W3CDTF_DATE, mdContainer, term, index, item, "The value '" + item.getValue() + "' is not in compliance with the scheme '"
+                        + EmdConstants.DateScheme.W3CDTF + "'");
+            }
+        }
+
+        private void checkSpatial(final Term term, final Spatial item) {
+            if (item.getPoint() != null && item.getBox() != null) {
+                report.report(Rule.SPATIAL_EXCLUSIVE, mdContainer, term, index, item, "Only one of point or box is acceptable");
+            } else if (!item.isComplete()) {
+                report.report(Rule.SPATIAL_COMPLETE, mdContainer, term, index, item, "Incomplete " + (item.getPoint() != null ? "point" : "box"));
+            }
+        }
+
+        private void checkAuthor(final Term term, final Author item) {
+            if (!item.isComplete()) {
+                report.report(Rule.AUTHOR_COMPLETE, mdContainer, term, index, item, "An author needs a surname and initials or an organization");
+            }
+        }
+
+        private void checkAccessRights(final Term term, final BasicString item) {
+            if (isAccessCategoryScheme(item.getSchemeId()) && !isAccessCategory(item.getValue())) {
+                report.report(Rule.ACCESS_CATEGORY, mdContainer, term, index, item, "Unknown access category '" + item.getValue() + "'");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,342 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.validation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EmdContainer;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.binding.EmdBindingOrder;
+import nl.knaw.dans.pf.language.emd.binding.EmdSAXSource;
+import nl.knaw.dans.pf.language.emd.types.Revisions;
+import nl.knaw.dans.pf.language.xml.exc.ValidatorException;
+import nl.knaw.dans.pf.language.xml.exc.XMLException;
+import nl.knaw.dans.pf.language.xml.validation.XMLErrorHandler;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Validates one easymetadata again and again, for instance after every change in an editing session, re-validating only the containers that changed since
+ * the previous validation.
+ * <p/>
+ * The results of the root element and of every container are cached with the version of the easymetadata and the
+ * {@link nl.knaw.dans.pf.language.emd.types.Modifiable revision} of the container. On {@link #validate()} the revisions of the instantiated containers are
+ * folded again, which reads no more than the items and serializes nothing, and only the root or the containers that were replaced or modified are validated.
+ * Items that cannot tell if they were modified count as modified every time. The events of a container include the root element, so a change of the
+ * version re-validates every container. The combined result lists the notifications of the root element, of the containers in
+ * {@link EmdBindingOrder binding order} and of the end of the root element, and is identical to that of {@link EMDValidator#validate(EasyMetadata)}. This relies on the emd schema declaring every
+ * container optional and on the validation of one container not depending on another container, as is the case for emd.xsd.
+ * <p/>
+ * Like {@link nl.knaw.dans.pf.language.emd.EasyMetadataImpl}, this class is not thread-safe.
+ * 
+ * @author ecco
+ */
+public class IncrementalEmdValidator {
+
+    private static final int WARNING = 0;
+    private static final int ERROR = 1;
+    private static final int FATAL_ERROR = 2;
+
+    private final EMDValidator validator;
+    private final EasyMetadata emd;
+
+    private final Map<MDContainer, Part> containerParts = new EnumMap<MDContainer, Part>(MDContainer.class);
+    private final Set<MDContainer> revalidated = EnumSet.noneOf(MDContainer.class);
+    private Part rootPart;
+
+    private Schema schema;
+    private ValidatorHandler validatorHandler;
+
+    /**
+     * Constructs an incremental validator of the given easymetadata that uses {@link EMDValidator#instance()}.
+     * 
+     * @param emd
+     *        the easymetadata to validate
+     */
+    public IncrementalEmdValidator(final EasyMetadata emd) {
+        this(EMDValidator.instance(), emd);
+    }
+
+    /**
+     * Constructs an incremental validator of the given easymetadata.
+     * 
+     * @param validator
+     *        the validator that supplies the schema
+     * @param emd
+     *        the easymetadata to validate
+     */
+    public IncrementalEmdValidator(final EMDValidator validator, final EasyMetadata emd) {
+        this.validator = validator;
+        this.emd = emd;
+    }
+
+    /**
+     * Validate the easymetadata, re-validating only the parts that changed since the previous validation. If the schema of the validator changed, everything
+     * is validated.
+     * 
+     * @return the result of the validation
+     * @throws XMLException
+     *         if the schema cannot be compiled
+     * @throws SAXException
+     *         if the validator throws it
+     */
+    public XMLErrorHandler validate() throws XMLException, SAXException {
+        final Schema current = validator.getSchema(null);
+        if (current != schema) {
+            invalidate();
+            schema = current;
+            validatorHandler = current.newValidatorHandler();
+        }
+        revalidated.clear();
+        rootPart = update(rootPart, EnumSet.noneOf(MDContainer.class), null);
+        for (final MDContainer mdContainer : EmdBindingOrder.containers()) {
+            final EmdContainer container = emd.getContainer(mdContainer, true);
+            if (container == null) {
+                containerParts.remove(mdContainer);
+            } else {
+                final Part previous = containerParts.get(mdContainer);
+                final Part part = update(previous, EnumSet.of(mdContainer), container);
+                if (part != previous) {
+                    containerParts.put(mdContainer, part);
+                    revalidated.add(mdContainer);
+                }
+            }
+        }
+        final XMLErrorHandler handler = new XMLErrorHandler();
+        report(rootPart.start, handler);
+        for (final MDContainer mdContainer : EmdBindingOrder.containers()) {
+            final Part part = containerParts.get(mdContainer);
+            if (part != null) {
+                report(part.content, handler);
+            }
+        }
+        report(rootPart.end, handler);
+        return handler;
+    }
+
+    /**
+     * Get the containers that were validated by the last call to {@link #validate()}; the results of the other containers were taken from the cache.
+     * 
+     * @return unmodifiable set of containers validated last time
+     */
+    public Set<MDContainer> getRevalidated() {
+        return Collections.unmodifiableSet(revalidated);
+    }
+
+    /**
+     * Forget all cached results, so that the next {@link #validate()} validates everything.
+     */
+    public void invalidate() {
+        rootPart = null;
+        containerParts.clear();
+    }
+
+    // Returns the previous part if neither the version nor the given container changed, a newly validated part otherwise.
+    private Part update(final Part previous, final Set<MDContainer> containers, final EmdContainer container) throws XMLException, SAXException {
+        final String version = emd.getVersion();
+        final long revision = container == null ? 0 : Revisions.fold(0, container);
+        Part part = previous;
+        if (part == null || !part.isFor(version, container, revision)) {
+            part = new Part(version, container, revision);
+            final PartHandler partHandler = new PartHandler(validatorHandler, part);
+            validatorHandler.setErrorHandler(partHandler);
+            try {
+                parse(containers, partHandler);
+            }
+            finally {
+                // do not hold on to the handler
+                validatorHandler.setErrorHandler(null);
+            }
+        }
+        return part;
+    }
+
+    private void parse(final Set<MDContainer> containers, final ContentHandler contentHandler) throws XMLException, SAXException {
+        final EmdSAXSource source = new EmdSAXSource(emd, containers);
+        final XMLReader reader = source.getXMLReader();
+        reader.setContentHandler(contentHandler);
+        try {
+            reader.parse(source.getInputSource());
+        }
+        catch (final IOException e) {
+            throw new ValidatorException(e);
+        }
+    }
+
+    private static void report(final List<Notification> notifications, final XMLErrorHandler handler) throws SAXException {
+        for (final Notification notification : notifications) {
+            if (notification.kind == WARNING) {
+                handler.warning(notification.exception);
+            } else if (notification.kind == ERROR) {
+                handler.error(notification.exception);
+            } else {
+                handler.fatalError(notification.exception);
+            }
+        }
+    }
+
+    private static final class Notification {
+
+        private final int kind;
+        private final SAXParseException exception;
+
+        Notification(final int kind, final SAXParseException exception) {
+            this.kind = kind;
+            this.exception = exception;
+        }
+    }
+
+    // The validation result of the root element or of one container.
+    private static final class Part {
+
+        private final String version;
+        private final EmdContainer container;
+        private final long revision;
+        // notifications at the start of the root element
+        private final List<Notification> start = new ArrayList<Notification>();
+        // notifications within a container
+        private final List<Notification> content = new ArrayList<Notification>();
+        // notifications at the end of the root element
+        private final List<Notification> end = new ArrayList<Notification>();
+
+        Part(final String version, final EmdContainer container, final long revision) {
+            this.version = version;
+            this.container = container;
+            this.revision = revision;
+        }
+
+        boolean isFor(final String otherVersion, final EmdContainer otherContainer, final long otherRevision) {
+            return (version == null ? otherVersion == null : version.equals(otherVersion)) && container == otherContainer && revision == otherRevision;
+        }
+    }
+
+    // Feeds the events to the validator handler and files its notifications by the depth at which they are reported.
+    private static final class PartHandler implements ContentHandler, ErrorHandler {
+
+        private final ContentHandler target;
+        private final Part part;
+        private int depth;
+        private boolean ending;
+
+        PartHandler(final ContentHandler target, final Part part) {
+            this.target = target;
+            this.part = part;
+        }
+
+        private void notify(final int kind, final SAXParseException exception) {
+            final Notification notification = new Notification(kind, exception);
+            if (depth > 1) {
+                part.content.add(notification);
+            } else if (ending) {
+                part.end.add(notification);
+            } else {
+                part.start.add(notification);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void warning(final SAXParseException exception) {
+            notify(WARNING, exception);
+        }
+
+        /** {@inheritDoc} */
+        public void error(final SAXParseException exception) {
+            notify(ERROR, exception);
+        }
+
+        /** {@inheritDoc} */
+        public void fatalError(final SAXParseException exception) throws SAXException {
+            notify(FATAL_ERROR, exception);
+            throw exception;
+        }
+
+        /** {@inheritDoc} */
+        public void setDocumentLocator(final Locator locator) {
+            target.setDocumentLocator(locator);
+        }
+
+        /** {@inheritDoc} */
+        public void startDocument() throws SAXException {
+            target.startDocument();
+        }
+
+        /** {@inheritDoc} */
+        public void endDocument() throws SAXException {
+            target.endDocument();
+        }
+
+        /** {@inheritDoc} */
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            target.startPrefixMapping(prefix, uri);
+        }
+
+        /** {@inheritDoc} */
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            target.endPrefixMapping(prefix);
+        }
+
+        /** {@inheritDoc} */
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts) throws SAXException {
+            depth++;
+            target.startElement(uri, localName, qName, atts);
+        }
+
+        /** {@inheritDoc} */
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            ending = depth == 1;
+            target.endElement(uri, localName, qName);
+            depth--;
+        }
+
+        /** {@inheritDoc} */
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            target.characters(ch, start, length);
+        }
+
+        /** {@inheritDoc} */
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+            target.ignorableWhitespace(ch, start, length);
+        }
+
+        /** {@inheritDoc} */
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            this.target.processingInstruction(target, data);
+        }
+
+        /** {@inheritDoc} */
+        public void skippedEntity(final String name) throws SAXException {
+            target.skippedEntity(name);
+        }
+    }
+
+}
@@ -0,0 +1,272 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+
+/**
+ * Resolves schema locations to schemas shipped on the class path, so schemas can be compiled without network access. The catalog is a properties file that
+ * maps absolute schema locations to class path resources, relative to the catalog:
+ * 
+ * <pre>
+ * http\://easy.dans.knaw.nl/schemas/md/emd/2016/emd.xsd = emd.xsd
+ * </pre>
+ * 
+ * Imports and includes are resolved against the original location of the importing schema, so the imports of a bundled schema are looked up in the catalog
+ * as well. Locations that are not in the catalog, or of which the resource is missing, are left to the default resolution of the schema factory.
+ * <p/>
+ * Instances are immutable and can be shared between threads.
+ */
+public class SchemaCatalog implements LSResourceResolver {
+
+    /**
+     * Class path resource of the catalog of schemas for easymetadata.
+     */
+    public static final String EMD_CATALOG = "/nl/knaw/dans/pf/language/emd/validation/schemas/catalog.properties";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaCatalog.class);
+
+    private static final SchemaCatalog EMD = new SchemaCatalog(EMD_CATALOG);
+
+    // Class path resources by absolute schema location. Only holds resources that exist.
+    private final Map<String, URL> resources;
+
+    /**
+     * Constructs a catalog from the given class path resource. A missing catalog is empty.
+     * 
+     * @param catalogResource
+     *        absolute class path resource of the catalog
+     */
+    public SchemaCatalog(final String catalogResource) {
+        final Map<String, URL> map = new HashMap<String, URL>();
+        final URL catalogURL = SchemaCatalog.class.getResource(catalogResource);
+        if (catalogURL == null) {
+            LOGGER.warn("No schema catalog at " + catalogResource + ". Schemas will be resolved by their location.");
+        } else {
+            final Properties catalog = load(catalogURL);
+            final String base = catalogResource.substring(0, catalogResource.lastIndexOf('/') + 1);
+            for (String location : catalog.stringPropertyNames()) {
+                final String resource = base + catalog.getProperty(location).trim();
+                final URL resourceURL = SchemaCatalog.class.getResource(resource);
+                if (resourceURL == null) {
+                    LOGGER.warn("Schema " + resource + " for " + location + " is not on the class path. It will be resolved by its location.");
+                } else {
+                    map.put(location, resourceURL);
+                }
+            }
+        }
+        resources = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Get the catalog of schemas for easymetadata, read from {@link #EMD_CATALOG}.
+     * 
+     * @return the catalog of schemas for easymetadata
+     */
+    public static SchemaCatalog emd() {
+        return EMD;
+    }
+
+    private static Properties load(final URL catalogURL) {
+        final Properties catalog = new Properties();
+        InputStream in = null;
+        try {
+            in = catalogURL.openStream();
+            catalog.load(in);
+        }
+        catch (final IOException e) {
+            throw new RuntimeException("Cannot read schema catalog " + catalogURL, e);
+        }
+        finally {
+            close(in);
+        }
+        return catalog;
+    }
+
+    private static void close(final InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            }
+            // ecco: CHECKSTYLE: OFF
+            catch (final IOException e) {
+                // nothing to do
+            }
+            // ecco: CHECKSTYLE: ON
+        }
+    }
+
+    /**
+     * Tells if the schema at the given location is shipped on the class path.
+     * 
+     * @param location
+     *        absolute schema location
+     * @return <code>true</code> if the schema is on the class path, <code>false</code> otherwise
+     */
+    public boolean contains(final String location) {
+        return resources.containsKey(location);
+    }
+
+    /**
+     * Get a source for the schema at the given location. The source reads from the class path if the schema is shipped, and from the location otherwise. Its
+     * system id is the location, so relative imports resolve against it.
+     * 
+     * @param location
+     *        absolute schema location
+     * @return a source for the schema
+     * @throws IOException
+     *         if the schema on the class path cannot be opened
+     */
+    public StreamSource getSource(final String location) throws IOException {
+        final URL resource = resources.get(location);
+        final StreamSource source = new StreamSource(location);
+        if (resource != null) {
+            source.setInputStream(resource.openStream());
+        }
+        return source;
+    }
+
+    /** {@inheritDoc} */
+    public LSInput resolveResource(final String type, final String namespaceURI, final String publicId, final String systemId, final String baseURI) {
+        LSInput input = null;
+        final String location = absolute(systemId, baseURI);
+        final URL resource = location == null ? null : resources.get(location);
+        if (resource != null) {
+            try {
+                input = new Input(publicId, location, baseURI, resource.openStream());
+            }
+            catch (final IOException e) {
+                LOGGER.warn("Cannot open schema " + resource + " for " + location + ". It will be resolved by its location.", e);
+            }
+        }
+        return input;
+    }
+
+    private static String absolute(final String systemId, final String baseURI) {
+        String location = systemId;
+        if (systemId != null && baseURI != null) {
+            try {
+                location = new URI(baseURI).resolve(new URI(systemId)).toString();
+            }
+            // ecco: CHECKSTYLE: OFF
+            catch (final URISyntaxException e) {
+                // leave it to the schema factory
+            }
+            // ecco: CHECKSTYLE: ON
+        }
+        return location;
+    }
+
+    private static final class Input implements LSInput {
+
+        private String publicId;
+        private String systemId;
+        private String baseURI;
+        private InputStream byteStream;
+        private Reader characterStream;
+        private String stringData;
+        private String encoding;
+        private boolean certifiedText;
+
+        Input(final String publicId, final String systemId, final String baseURI, final InputStream byteStream) {
+            this.publicId = publicId;
+            this.systemId = systemId;
+            this.baseURI = baseURI;
+            this.byteStream = byteStream;
+        }
+
+        public Reader getCharacterStream() {
+            return characterStream;
+        }
+
+        public void setCharacterStream(final Reader characterStream) {
+            this.characterStream = characterStream;
+        }
+
+        public InputStream getByteStream() {
+            return byteStream;
+        }
+
+        public void setByteStream(final InputStream byteStream) {
+            this.byteStream = byteStream;
+        }
+
+        public String getStringData() {
+            return stringData;
+        }
+
+        public void setStringData(final String stringData) {
+            this.stringData = stringData;
+        }
+
+        public String getSystemId() {
+            return systemId;
+        }
+
+        public void setSystemId(final String systemId) {
+            this.systemId = systemId;
+        }
+
+        public String getPublicId() {
+            return publicId;
+        }
+
+        public void setPublicId(final String publicId) {
+            this.publicId = publicId;
+        }
+
+        public String getBaseURI() {
+            return baseURI;
+        }
+
+        public void setBaseURI(final String baseURI) {
+            this.baseURI = baseURI;
+        }
+
+        public String getEncoding() {
+            return encoding;
+        }
+
+        public void setEncoding(final String encoding) {
+            this.encoding = encoding;
+        }
+
+        public boolean getCertifiedText() {
+            return certifiedText;
+        }
+
+        public void setCertifiedText(final boolean certifiedText) {
+            this.certifiedText = certifiedText;
+        }
+    }
+
+}
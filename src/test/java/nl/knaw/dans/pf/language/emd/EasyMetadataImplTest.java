@@ -15,7 +15,15 @@
  */
 package nl.knaw.dans.pf.language.emd;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -70,6 +78,21 @@ public class EasyMetadataImplTest {
         Assert.assertTrue(toString.endsWith("remarks;http://easy.dans.knaw.nl/easy/easymetadata/eas/;remarks 0;remarks 1;remarks 2"));
     }
 
+    @Test
+    public void testAppendTo() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        StringWriter writer = new StringWriter();
+        emd.appendTo(writer, ";");
+        Assert.assertEquals("", writer.toString());
+        Assert.assertEquals("", emd.toString(";"));
+
+        EmdHelper.populate(3, emd);
+        writer = new StringWriter();
+        emd.appendTo(writer, ";");
+        Assert.assertEquals(emd.toString(";"), writer.toString());
+        Assert.assertTrue(writer.toString().startsWith("title;http://purl.org/dc/elements/1.1/;title 0;title 1;title 2\nalternative;"));
+    }
+
     @Test
     public void testContainerToString() throws XMLException, SAXException, SchemaCreationException {
         EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
@@ -129,6 +152,23 @@ public class EasyMetadataImplTest {
         Assert.assertEquals(MDContainer.Title, emd.getTermsMap().get(term));
     }
 
+    @Test(expected = UnsupportedOperationException.class)
+    public void testTermsMapIsImmutable() {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        Assert.assertSame(emd.getTermsMap(), new EasyMetadataImpl().getTermsMap());
+        emd.getTermsMap().put(new Term(Term.Name.TITLE, Term.Namespace.EAS), MDContainer.Title);
+    }
+
+    @Test
+    public void testGetTermByName() {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        for (Map.Entry<Term, MDContainer> entry : emd.getTermsMap().entrySet()) {
+            Assert.assertSame(emd.getContainer(entry.getValue(), false).get(entry.getKey()), emd.getTerm(entry.getKey()));
+        }
+        emd.getEmdAudience().getTermsAudience().add(new BasicString("xyz"));
+        Assert.assertEquals(emd.getEmdAudience().getTermsAudience(), emd.getTerm(new Term(Term.Name.AUDIENCE)));
+    }
+
     @Test
     public void testGetContainer() {
         EasyMetadata emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
@@ -139,6 +179,18 @@ public class EasyMetadataImplTest {
         Assert.assertNotNull(emd.getContainer(MDContainer.Creator, false));
     }
 
+    @Test
+    public void testGetAllContainers() {
+        EasyMetadata emd = new EasyMetadataImpl();
+        for (MDContainer mdContainer : MDContainer.values()) {
+            Assert.assertNull(emd.getContainer(mdContainer, true));
+            EmdContainer container = emd.getContainer(mdContainer, false);
+            Assert.assertEquals("Emd" + mdContainer.name(), container.getClass().getSimpleName());
+            Assert.assertSame(container, emd.getContainer(mdContainer, true));
+            Assert.assertSame(container, emd.getContainer(mdContainer, false));
+        }
+    }
+
     @Test
     public void testGetTerm() {
         EasyMetadata emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
@@ -179,6 +231,50 @@ public class EasyMetadataImplTest {
 
     }
 
+    @Test
+    public void testSerialization() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+        emd.setVersionable(true);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(emd);
+        out.writeObject("next");
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        EasyMetadataImpl emd2 = (EasyMetadataImpl) in.readObject();
+        Assert.assertEquals("next", in.readObject());
+        in.close();
+
+        Assert.assertEquals(emd.toString("; "), emd2.toString("; "));
+        Assert.assertTrue(emd2.isVersionable());
+        Assert.assertEquals(MetadataFormat.DEFAULT, emd2.getEmdOther().getEasApplicationSpecific().getMetadataFormat());
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void serialFormFailsOnEarlierVersions() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(1, emd);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(emd);
+        out.close();
+        // a reader of an earlier version, that does not know the serial form
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())) {
+
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                if (desc.getName().equals(EasyMetadataSerialForm.class.getName())) {
+                    throw new ClassNotFoundException(desc.getName());
+                }
+                return super.resolveClass(desc);
+            }
+        };
+        in.readObject();
+    }
+
     @Test
     public void visitChildrenNonEmpty() {
         EasyMetadata emd = EasyMetadataFactory.newEasyMetadata(MetadataFormat.DEFAULT);
@@ -209,6 +305,104 @@ public class EasyMetadataImplTest {
         Assert.assertFalse(count == 0);
     }
 
+    @Test
+    public void forEachNonEmptyContainer() {
+        EasyMetadata emd = new EasyMetadataImpl();
+        emd.getEmdDate();
+        emd.getEmdRights().getDcRights().add(new BasicString("open"));
+        emd.getEmdTitle().getDcTitle().add(new BasicString("title"));
+        final StringBuilder visited = new StringBuilder();
+        Object object = emd.forEachNonEmptyContainer(new EmdVisitor() {
+
+            public Object container(EmdContainer container) {
+                visited.append(container.getClass().getSimpleName()).append(" ");
+                return container;
+            }
+
+        });
+        Assert.assertEquals("EmdTitle EmdRights ", visited.toString());
+        Assert.assertSame(emd.getEmdRights(), object);
+        Assert.assertNull(emd.getContainer(MDContainer.Creator, true));
+    }
+
+    @Test
+    public void acceptItemVisitor() throws URISyntaxException {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+        final List<MetadataItem> items = new ArrayList<MetadataItem>();
+        final StringBuilder containers = new StringBuilder();
+        Assert.assertTrue(emd.accept(new EmdItemVisitor() {
+
+            public boolean startContainer(MDContainer mdContainer, EmdContainer container) {
+                containers.append(mdContainer.name()).append(" ");
+                return true;
+            }
+
+            public boolean term(Term term, List<? extends MetadataItem> termItems) {
+                return true;
+            }
+
+            public boolean item(Term term, MetadataItem item) {
+                items.add(item);
+                return true;
+            }
+
+        }));
+        int size = 0;
+        for (MDContainer mdContainer : MDContainer.values()) {
+            size += emd.getContainer(mdContainer, false).size();
+        }
+        Assert.assertEquals(size, items.size());
+        Assert.assertTrue(containers.toString().startsWith("Title Creator "));
+        Assert.assertSame(emd.getEmdTitle().getDcTitle().get(0), items.get(0));
+    }
+
+    @Test
+    public void acceptItemVisitorStops() throws URISyntaxException {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+        final int[] visits = new int[1];
+        Assert.assertFalse(emd.accept(new EmdItemVisitor() {
+
+            public boolean startContainer(MDContainer mdContainer, EmdContainer container) {
+                return true;
+            }
+
+            public boolean term(Term term, List<? extends MetadataItem> termItems) {
+                return true;
+            }
+
+            public boolean item(Term term, MetadataItem item) {
+                return ++visits[0] < 3;
+            }
+
+        }));
+        Assert.assertEquals(3, visits[0]);
+    }
+
+    @Test
+    public void termCounts() {
+        EasyMetadata emd = new EasyMetadataImpl();
+        int[] counts = emd.termCounts();
+        Assert.assertEquals(Term.ORDINAL_COUNT, counts.length);
+        for (int count : counts) {
+            Assert.assertEquals(0, count);
+        }
+        Assert.assertNull(emd.getContainer(MDContainer.Title, true));
+
+        emd.getEmdTitle().getDcTitle().add(new BasicString("title"));
+        emd.getEmdDate().getTermsCreated().add(new BasicDate("1992-1994"));
+        emd.getEmdDate().getEasCreated().add(new IsoDate("2004"));
+        emd.getEmdDate().getEasCreated().add(new IsoDate("2005"));
+        counts = emd.termCounts();
+        Assert.assertEquals(1, counts[Term.of(Term.Name.TITLE, Term.Namespace.DC).ordinal()]);
+        Assert.assertEquals(1, counts[Term.of(Term.Name.TITLE).ordinal()]);
+        Assert.assertEquals(1, counts[Term.of(Term.Name.CREATED, Term.Namespace.DCTERMS).ordinal()]);
+        Assert.assertEquals(2, counts[Term.of(Term.Name.CREATED, Term.Namespace.EAS).ordinal()]);
+        Assert.assertEquals(3, counts[Term.of(Term.Name.CREATED).ordinal()]);
+        Assert.assertEquals(0, counts[Term.of(Term.Name.DATE).ordinal()]);
+    }
+
     @Test
     public void dcTermsCreated() throws Exception {
         EasyMetadata emd = new EasyMetadataImpl();
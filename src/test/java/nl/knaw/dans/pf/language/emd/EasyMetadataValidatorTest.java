@@ -18,9 +18,11 @@ package nl.knaw.dans.pf.language.emd;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import javax.xml.validation.Schema;
 
+import nl.knaw.dans.pf.language.emd.binding.EmdBindingEngine;
 import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
 import nl.knaw.dans.pf.language.emd.validation.EMDValidator;
 import nl.knaw.dans.pf.language.xml.exc.SchemaCreationException;
@@ -50,6 +52,18 @@ public class EasyMetadataValidatorTest {
         Assert.assertNotSame(result, result2);
     }
 
+    @Test
+    public void testValidateByteBuffer() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+        Assert.assertTrue(EMDValidator.instance().validate(emd).passed());
+
+        ByteBuffer buffer = EmdBindingEngine.instance().marshal(emd, ByteBuffer.allocate(16));
+        int remaining = buffer.remaining();
+        Assert.assertTrue(EMDValidator.instance().validate(buffer).passed());
+        Assert.assertEquals(remaining, buffer.remaining());
+    }
+
     @Test
     public void testValidateValidXML() throws IOException, ValidatorException, SAXException, SchemaCreationException {
         InputStream fis = null;
@@ -15,9 +15,13 @@
  */
 package nl.knaw.dans.pf.language.emd;
 
+import java.util.List;
+
 import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.exceptions.NoSuchTermException;
 import nl.knaw.dans.pf.language.emd.types.BasicDate;
 import nl.knaw.dans.pf.language.emd.types.IsoDate;
+import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -60,6 +64,59 @@ public class EmdDateTest {
         // System.out.println(emdDate.toString(", ", true));
     }
 
+    @Test
+    public void testSizeDoesNotInstantiate() {
+        EmdDate emdDate = new EmdDate();
+        Assert.assertTrue(emdDate.isEmpty());
+        Assert.assertEquals(0, emdDate.size());
+        Assert.assertEquals("", emdDate.toString(";", true));
+        Assert.assertTrue(emdDate.getValues().isEmpty());
+        for (int index = 0; index < EmdDate.TERMS.length; index++) {
+            Assert.assertNull(emdDate.peekTermList(index));
+        }
+
+        emdDate.getEasCreated().add(new IsoDate("2004"));
+        Assert.assertFalse(emdDate.isEmpty());
+        Assert.assertEquals(1, emdDate.size());
+        Assert.assertSame(emdDate.getEasCreated(), emdDate.peekTermList(10));
+        Assert.assertNull(emdDate.peekTermList(0));
+    }
+
+    @Test
+    public void testGetByName() {
+        EmdDate emdDate = new EmdDate();
+        Assert.assertTrue(emdDate.get(Term.Name.VALID).isEmpty());
+        Assert.assertTrue(emdDate.get(Term.Name.TITLE).isEmpty());
+
+        emdDate.getEasValid().add(new IsoDate("2008-08-20"));
+        emdDate.getTermsValid().add(new BasicDate("2020-10-31"));
+        List<MetadataItem> valid = emdDate.get(Term.Name.VALID);
+        Assert.assertEquals(2, valid.size());
+        Assert.assertSame(emdDate.getTermsValid().get(0), valid.get(0));
+        Assert.assertSame(emdDate.getEasValid().get(0), valid.get(1));
+    }
+
+    @Test
+    public void testGetView() {
+        EmdDate emdDate = new EmdDate();
+        Assert.assertTrue(emdDate.getView(Term.Name.TITLE).isEmpty());
+        List<MetadataItem> view = emdDate.getView(Term.Name.VALID);
+        Assert.assertTrue(view.isEmpty());
+
+        emdDate.getEasValid().add(new IsoDate("2008-08-20"));
+        emdDate.getTermsValid().add(new BasicDate("2020-10-31"));
+        Assert.assertEquals(emdDate.get(Term.Name.VALID), view);
+
+        List<MetadataItem> accepted = emdDate.getView(Term.Name.DATE_ACCEPTED);
+        emdDate.getTermsDateAccepted().add(new BasicDate("2011"));
+        Assert.assertEquals(emdDate.getTermsDateAccepted(), accepted);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewIsUnmodifiable() {
+        new EmdDate().getView(Term.Name.VALID).add(new BasicDate("2011"));
+    }
+
     @Test
     public void testTermToString() {
         EmdDate emdDate = new EmdDate();
@@ -77,4 +134,16 @@ public class EmdDateTest {
 
     }
 
+    @Test
+    public void testGetTerm() {
+        EmdDate emdDate = new EmdDate();
+        Assert.assertSame(emdDate.getEasCreated(), emdDate.get(new Term(Term.Name.CREATED, Term.Namespace.EAS)));
+        Assert.assertSame(emdDate.getTermsCreated(), emdDate.get(new Term(Term.Name.CREATED, Term.Namespace.DCTERMS)));
+    }
+
+    @Test(expected = NoSuchTermException.class)
+    public void testGetUnknownTerm() {
+        new EmdDate().get(new Term(Term.Name.TITLE, Term.Namespace.DC));
+    }
+
 }
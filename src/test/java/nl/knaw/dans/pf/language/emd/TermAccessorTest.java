@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import nl.knaw.dans.pf.language.emd.exceptions.NoSuchTermException;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.util.StringUtil;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class TermAccessorTest {
+
+    // The term accessors of the containers are written out by hand. Make sure they agree with TERMS and the getters.
+    @Test
+    public void accessorsMatchGetters() throws Exception {
+        EasyMetadata emd = new EasyMetadataImpl();
+        for (MDContainer mdContainer : MDContainer.values()) {
+            AbstractEmdContainer container = (AbstractEmdContainer) emd.getContainer(mdContainer, false);
+            List<Term> terms = container.getTerms();
+            for (int index = 0; index < terms.size(); index++) {
+                Term term = terms.get(index);
+                Method getter = container.getClass().getMethod(
+                        "get" + StringUtil.firstCharToUpper(term.getNamespace().prefix) + StringUtil.firstCharToUpper(term.getName().termName));
+                Assert.assertSame(term.getQualifiedName(), getter.invoke(container), container.getTermList(index));
+                Assert.assertSame(term.getQualifiedName(), getter.invoke(container), container.get(term));
+                Assert.assertSame(term.getQualifiedName(), getter.invoke(container), container.peekTermList(index));
+            }
+        }
+    }
+
+    @Test
+    public void reflectiveFallback() {
+        ConventionalContainer container = new ConventionalContainer();
+        container.getDcTitle().add(new BasicString("foo"));
+        Assert.assertSame(container.getDcTitle(), container.get(new Term(Term.Name.TITLE, Term.Namespace.DC)));
+        Assert.assertEquals(1, container.get(Term.Name.TITLE).size());
+    }
+
+    @Test(expected = NoSuchTermException.class)
+    public void reflectiveFallbackWithoutGetter() {
+        new ConventionalContainer().get(new Term(Term.Name.ALTERNATIVE, Term.Namespace.DCTERMS));
+    }
+
+    // A container that relies on the naming convention of its getters.
+    public static class ConventionalContainer extends AbstractEmdContainer {
+
+        private static final long serialVersionUID = 1L;
+
+        static final Term[] TERMS = {new Term(Term.Name.TITLE, Term.Namespace.DC, BasicString.class),
+                new Term(Term.Name.ALTERNATIVE, Term.Namespace.DCTERMS, BasicString.class)};
+
+        private List<BasicString> dcTitle = new ArrayList<BasicString>();
+
+        public List<Term> getTerms() {
+            return Arrays.asList(TERMS);
+        }
+
+        public List<BasicString> getDcTitle() {
+            return dcTitle;
+        }
+    }
+
+}
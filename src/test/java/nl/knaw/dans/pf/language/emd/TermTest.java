@@ -16,6 +16,10 @@
 package nl.knaw.dans.pf.language.emd;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import java.util.List;
 import java.util.Map;
@@ -26,6 +30,7 @@ import nl.knaw.dans.pf.language.emd.Term;
 import nl.knaw.dans.pf.language.emd.Term.Name;
 import nl.knaw.dans.pf.language.emd.Term.Namespace;
 import nl.knaw.dans.pf.language.emd.binding.EasyMetadataFactory;
+import nl.knaw.dans.pf.language.emd.exceptions.NoSuchTermException;
 import nl.knaw.dans.pf.language.emd.types.BasicString;
 import nl.knaw.dans.pf.language.emd.types.MetadataItem;
 import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
@@ -58,6 +63,78 @@ public class TermTest {
         new Term("foo");
     }
 
+    @Test
+    public void testCanonicalTerms() {
+        boolean[] seen = new boolean[Term.ORDINAL_COUNT];
+        for (Name name : Name.values()) {
+            assertSame(Term.of(name), Term.of(name, null));
+            assertNull(Term.of(name).getNamespace());
+            for (Namespace namespace : Namespace.values()) {
+                Term term = Term.of(name, namespace);
+                assertSame(term, Term.of(name, namespace));
+                assertEquals(new Term(name, namespace), term);
+                assertEquals(new Term(name, namespace).hashCode(), term.hashCode());
+                assertSame(term, Term.of(term.ordinal()));
+                assertFalse(seen[term.ordinal()]);
+                seen[term.ordinal()] = true;
+            }
+        }
+    }
+
+    @Test
+    public void testParse() {
+        Term term = Term.parse("dc.title");
+        assertSame(Term.of(Name.TITLE, Namespace.DC), term);
+        assertSame(term, Term.parse("dc.title"));
+        assertSame(Term.of(Name.ABSTRACT), Term.parse("abstract"));
+        assertEquals(new Term(Name.CREATED, Namespace.EAS, BasicString.class), Term.parse("EAS.CREATED"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknown() {
+        Term.parse("dc.foo");
+    }
+
+    @Test
+    public void testNullTerms() {
+        assertNoSuchTerm(new Runnable() {
+            public void run() {
+                Term.of(null);
+            }
+        });
+        assertNoSuchTerm(new Runnable() {
+            public void run() {
+                Term.of(null, Namespace.DC);
+            }
+        });
+        assertNoSuchTerm(new Runnable() {
+            public void run() {
+                Term.parse(null);
+            }
+        });
+        final EasyMetadata emd = EasyMetadataFactory.newEasyMetadata(MetadataFormat.DEFAULT);
+        assertNoSuchTerm(new Runnable() {
+            public void run() {
+                emd.getEmdTitle().get(new Term(null, Namespace.DC));
+            }
+        });
+        assertNoSuchTerm(new Runnable() {
+            public void run() {
+                emd.getEmdTitle().get((Name) null);
+            }
+        });
+    }
+
+    private static void assertNoSuchTerm(Runnable runnable) {
+        try {
+            runnable.run();
+            fail("expected NoSuchTermException");
+        }
+        catch (NoSuchTermException e) {
+            // expected
+        }
+    }
+
     @Test
     public void getContainer() {
         EasyMetadata emd = EasyMetadataFactory.newEasyMetadata(MetadataFormat.DEFAULT);
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+import nl.knaw.dans.pf.language.emd.types.BasicIdentifier;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.EmdConstants;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class EmdArchiveTest {
+
+    private static final int RECORDS = 250;
+
+    private static final File DIR = new File("target/test-output/emd-archive");
+
+    private static File file(String name) {
+        DIR.mkdirs();
+        return new File(DIR, name);
+    }
+
+    private static byte[] xml(int i) throws Exception {
+        return ("<emd:easymetadata xmlns:emd=\"http://easy.dans.knaw.nl/easy/easymetadata/\" emd:version=\"0.1\"><!-- record " + i
+                + " --></emd:easymetadata>").getBytes("UTF-8");
+    }
+
+    private static File writeArchive(String name) throws Exception {
+        File file = file(name);
+        EmdArchiveWriter writer = new EmdArchiveWriter(file, 1024);
+        for (int i = 0; i < RECORDS; i++) {
+            writer.add("easy-dataset:" + i, xml(i));
+        }
+        assertEquals(RECORDS, writer.size());
+        writer.close();
+        return file;
+    }
+
+    @Test
+    public void randomAccess() throws Exception {
+        File file = writeArchive("random-access.emda");
+        for (boolean mapped : new boolean[] {false, true}) {
+            EmdArchiveReader reader = new EmdArchiveReader(file, mapped);
+            assertEquals(RECORDS, reader.size());
+            for (int i = RECORDS - 1; i >= 0; i -= 7) {
+                assertArrayEquals(xml(i), reader.getXml("easy-dataset:" + i));
+            }
+            assertTrue(reader.contains("easy-dataset:0"));
+            assertFalse(reader.contains("easy-dataset:" + RECORDS));
+            assertNull(reader.getXml("easy-dataset:" + RECORDS));
+            assertNull(reader.get("easy-dataset:" + RECORDS));
+            reader.close();
+        }
+        assertTrue(file.length() < RECORDS * xml(0).length / 2);
+    }
+
+    @Test
+    public void iterate() throws Exception {
+        EmdArchiveReader reader = new EmdArchiveReader(writeArchive("iterate.emda"));
+        Iterator<String> ids = reader.getIds().iterator();
+        int i = 0;
+        for (Map.Entry<String, byte[]> record : reader) {
+            assertEquals("easy-dataset:" + i, record.getKey());
+            assertEquals(ids.next(), record.getKey());
+            assertArrayEquals(xml(i), record.getValue());
+            i++;
+        }
+        assertEquals(RECORDS, i);
+        reader.close();
+    }
+
+    @Test
+    public void emptyArchive() throws Exception {
+        File file = file("empty.emda");
+        new EmdArchiveWriter(file).close();
+        EmdArchiveReader reader = new EmdArchiveReader(file);
+        assertEquals(0, reader.size());
+        assertFalse(reader.iterator().hasNext());
+        reader.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateId() throws Exception {
+        EmdArchiveWriter writer = new EmdArchiveWriter(file("duplicate.emda"));
+        try {
+            writer.add("easy-dataset:1", xml(1));
+            writer.add("easy-dataset:1", xml(2));
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void notAnArchive() throws Exception {
+        File file = file("not-an-archive.emda");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(xml(1));
+        out.close();
+        new EmdArchiveReader(file);
+    }
+
+    @Test
+    public void easyMetadata() throws Exception {
+        File file = file("easymetadata.emda");
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        BasicIdentifier id = new BasicIdentifier("easy-dataset:42");
+        id.setScheme(EmdConstants.SCHEME_DMO_ID);
+        emd.getEmdIdentifier().add(id);
+        emd.getEmdTitle().getDcTitle().add(new BasicString("title"));
+
+        EmdArchiveWriter writer = new EmdArchiveWriter(file);
+        writer.add(emd);
+        writer.close();
+
+        EmdArchiveReader reader = new EmdArchiveReader(file);
+        assertEquals(emd.toString("; "), reader.get("easy-dataset:42").toString("; "));
+        reader.close();
+    }
+
+}
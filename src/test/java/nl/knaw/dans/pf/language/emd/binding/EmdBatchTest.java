@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdHelper;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class EmdBatchTest {
+
+    private static final String TEMPLATE = "<emd:easymetadata xmlns:emd=\"http://easy.dans.knaw.nl/easy/easymetadata/\""
+            + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\"><emd:identifier><dc:identifier>%s</dc:identifier></emd:identifier></emd:easymetadata>";
+
+    @Test
+    public void resultsInInputOrder() throws Exception {
+        List<String> sources = new ArrayList<String>();
+        for (int i = 0; i < 200; i++) {
+            sources.add(i % 50 == 7 ? "<not-emd/>" : String.format(TEMPLATE, "id" + i));
+        }
+        final List<String> ids = new ArrayList<String>();
+        final List<Integer> errors = new ArrayList<Integer>();
+        EmdBatch.Statistics statistics = new EmdBatch(4, 8).run(sources.iterator(), new EmdBatch.Task<String, EasyMetadata>() {
+
+            public String getName(String source) {
+                return "record";
+            }
+
+            public EasyMetadata process(String source) throws Exception {
+                return new EmdStaxUnmarshaller().unmarshal(source);
+            }
+        }, new EmdBatch.Callback<EasyMetadata>() {
+
+            public void onResult(int index, String name, EasyMetadata result) {
+                assertEquals(ids.size() + errors.size(), index);
+                ids.add(result.getEmdIdentifier().getDcIdentifier().get(0).getValue());
+            }
+
+            public void onError(int index, String name, Exception error) {
+                assertEquals(ids.size() + errors.size(), index);
+                errors.add(index);
+            }
+        });
+        assertEquals(200, statistics.getRecords());
+        assertEquals(4, statistics.getErrors());
+        assertEquals(196, ids.size());
+        assertEquals("id0", ids.get(0));
+        assertEquals("id8", ids.get(7));
+        assertEquals("id199", ids.get(195));
+        assertEquals(7, errors.get(0).intValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void callbackFailureStopsBatch() throws Exception {
+        Iterator<Integer> endless = new Iterator<Integer>() {
+
+            int i;
+
+            public boolean hasNext() {
+                return true;
+            }
+
+            public Integer next() {
+                return i++;
+            }
+
+            public void remove() {
+            }
+        };
+        new EmdBatch(2, 4).run(endless, new EmdBatch.Task<Integer, Integer>() {
+
+            public String getName(Integer source) {
+                return source.toString();
+            }
+
+            public Integer process(Integer source) {
+                return source;
+            }
+        }, new EmdBatch.Callback<Integer>() {
+
+            public void onResult(int index, String name, Integer result) {
+                if (result == 10) {
+                    throw new IllegalStateException("enough");
+                }
+            }
+
+            public void onError(int index, String name, Exception error) {
+            }
+        });
+    }
+
+    @Test
+    public void directory() throws Exception {
+        File dir = new File("target/test-output/emd-batch");
+        dir.mkdirs();
+        for (int i = 0; i < 5; i++) {
+            FileOutputStream out = new FileOutputStream(new File(dir, "emd" + i + ".xml"));
+            out.write(String.format(TEMPLATE, "id" + i).getBytes("UTF-8"));
+            out.close();
+        }
+        final List<String> names = new ArrayList<String>();
+        new EmdBatch(2, 2).run(EmdBatch.inputs(dir), new EmdBatch.Task<EmdBatch.Input, EasyMetadata>() {
+
+            public String getName(EmdBatch.Input input) {
+                return input.getName();
+            }
+
+            public EasyMetadata process(EmdBatch.Input input) throws Exception {
+                InputStream in = input.open();
+                try {
+                    return new EmdStaxUnmarshaller().unmarshal(in);
+                }
+                finally {
+                    in.close();
+                }
+            }
+        }, new EmdBatch.Callback<EasyMetadata>() {
+
+            public void onResult(int index, String name, EasyMetadata result) {
+                names.add(name);
+                assertEquals("id" + index, result.getEmdIdentifier().getDcIdentifier().get(0).getValue());
+            }
+
+            public void onError(int index, String name, Exception error) {
+                throw new AssertionError(error);
+            }
+        });
+        assertEquals(5, names.size());
+        assertTrue(names.get(4).endsWith("emd4.xml"));
+    }
+
+    @Test
+    public void marshalAndUnmarshalAll() throws Exception {
+        List<EasyMetadata> beans = new ArrayList<EasyMetadata>();
+        for (int i = 0; i < 20; i++) {
+            EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+            EmdHelper.populate(1 + i % 3, emd);
+            beans.add(emd);
+        }
+        final List<InputStream> documents = new ArrayList<InputStream>();
+        EmdBatch batch = new EmdBatch();
+        batch.marshal(beans.iterator(), new EmdBatch.Callback<byte[]>() {
+
+            public void onResult(int index, String name, byte[] result) {
+                documents.add(new ByteArrayInputStream(result));
+            }
+
+            public void onError(int index, String name, Exception error) {
+                throw new AssertionError(error);
+            }
+        });
+        Map<Integer, Exception> errors = new HashMap<Integer, Exception>();
+        List<EasyMetadata> read = batch.unmarshalAll(EmdBatch.inputs(documents.iterator()), errors);
+        assertTrue(errors.isEmpty());
+        assertEquals(20, read.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(beans.get(i).toString("; "), read.get(i).toString("; "));
+        }
+        assertNull(errors.get(0));
+    }
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdHelper;
+import nl.knaw.dans.pf.language.emd.EmdSerialCodec;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class EmdBinaryCodecTest {
+
+    private final EmdBinaryCodec codec = new EmdBinaryCodec();
+
+    @Test
+    public void roundtrip() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        byte[] bytes = codec.encode(emd);
+        EasyMetadata emd2 = codec.decode(bytes);
+
+        assertEquals(emd.toString("; "), emd2.toString("; "));
+        assertEquals(emd.getVersion(), emd2.getVersion());
+        assertEquals(emd.getEmdOther().getEasApplicationSpecific().getPakbonStatus(), emd2.getEmdOther().getEasApplicationSpecific()
+                .getPakbonStatus());
+        assertArrayEquals(bytes, codec.encode(emd2));
+    }
+
+    @Test
+    public void sameXmlAsOriginal() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        EasyMetadata emd2 = codec.decode(codec.encode(emd));
+        assertEquals(new EmdMarshaller(emd).getXmlString(), new EmdMarshaller(emd2).getXmlString());
+    }
+
+    @Test
+    public void stream() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(1, emd);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(emd, out);
+        assertArrayEquals(codec.encode(emd), out.toByteArray());
+        assertEquals(emd.toString("; "), codec.decode(new ByteArrayInputStream(out.toByteArray())).toString("; "));
+    }
+
+    @Test
+    public void nullItemsAndValues() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        emd.getEmdTitle().getDcTitle().add(null);
+        emd.getEmdTitle().getDcTitle().add(new BasicString());
+        emd.getEmdOther().setEasApplicationSpecific(null);
+
+        EasyMetadata emd2 = codec.decode(codec.encode(emd));
+        assertEquals(2, emd2.getEmdTitle().getDcTitle().size());
+        assertNull(emd2.getEmdTitle().getDcTitle().get(0));
+        assertNull(emd2.getEmdTitle().getDcTitle().get(1).getValue());
+        assertNull(emd2.getEmdOther().getEasApplicationSpecific());
+    }
+
+    @Test
+    public void smallerThanXml() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        assertTrue(codec.encode(emd).length < new EmdMarshaller(emd).getXmlByteArray().length / 2);
+    }
+
+    @Test(expected = IOException.class)
+    public void notEncoded() throws Exception {
+        codec.decode("<emd:easymetadata/>".getBytes("UTF-8"));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncated() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(1, emd);
+
+        byte[] bytes = codec.encode(emd);
+        codec.decode(Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    @Test(expected = IOException.class)
+    public void otherFingerprint() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(1, emd);
+
+        byte[] bytes = codec.encode(emd);
+        // Magic and a one byte version, then the fingerprint.
+        bytes[EmdBinaryCodec.MAGIC.length + 1] ^= 0x02;
+        codec.decode(bytes);
+    }
+
+    @Test
+    public void registeredAsSerialCodec() throws Exception {
+        Iterator<EmdSerialCodec> codecs = ServiceLoader.load(EmdSerialCodec.class).iterator();
+        assertTrue(codecs.hasNext());
+        assertTrue(codecs.next() instanceof EmdBinaryCodec);
+    }
+
+}
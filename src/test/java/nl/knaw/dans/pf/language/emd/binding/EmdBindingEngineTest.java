@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdHelper;
+import nl.knaw.dans.pf.language.emd.EmdTitle;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+import nl.knaw.dans.pf.language.xml.exc.XMLDeserializationException;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class EmdBindingEngineTest {
+
+    private final EmdBindingEngine engine = EmdBindingEngine.instance();
+
+    @Test
+    public void roundtrip() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        engine.marshal(emd, out);
+        EasyMetadata emd2 = engine.unmarshal(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(new EmdMarshaller(emd).getXmlString(), new EmdMarshaller(emd2).getXmlString());
+        assertTrue(new String(out.toByteArray(), "UTF-8").startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"));
+    }
+
+    @Test
+    public void contextsAreReused() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        byte[] first = engine.marshal(emd);
+        byte[] second = engine.marshal(emd);
+        assertArrayEquals(first, second);
+        assertEquals(emd.toString("; "), engine.unmarshal(first).toString("; "));
+        assertEquals(emd.toString("; "), engine.unmarshal(second).toString("; "));
+    }
+
+    @Test
+    public void byteBuffer() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        ByteBuffer buffer = engine.marshal(emd, ByteBuffer.allocate(16));
+        assertArrayEquals(engine.marshal(emd), toArray(buffer.duplicate()));
+        assertEquals(emd.toString("; "), engine.unmarshal(buffer).toString("; "));
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void container() throws Exception {
+        EmdTitle title = new EmdTitle();
+        EmdHelper.populate(2, title);
+
+        EmdTitle title2 = engine.unmarshal(new ByteArrayInputStream(engine.marshal(title)), EmdTitle.class);
+        assertEquals(title.toString(), title2.toString());
+    }
+
+    @Test(expected = XMLDeserializationException.class)
+    public void wrongRootClass() throws Exception {
+        EmdTitle title = new EmdTitle();
+        engine.unmarshal(engine.marshal(title));
+    }
+
+    @Test
+    public void omitXmlDeclaration() throws Exception {
+        EmdBindingEngine noDeclaration = new EmdBindingEngine(EmdBindingEngine.DEFAULT_ENCODING, true, true, EmdBindingEngine.DEFAULT_INDENT);
+        String xml = new String(noDeclaration.marshal(new EmdTitle()), "UTF-8");
+        assertFalse(xml.contains("<?xml"));
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdHelper;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+import nl.knaw.dans.pf.language.emd.types.BasicDate;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.IsoDate;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class EmdCanonicalWriterTest {
+
+    private final EmdCanonicalWriter writer = new EmdCanonicalWriter();
+
+    @Test
+    public void readable() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        byte[] xml = writer.write(emd);
+        EasyMetadata emd2 = new EmdUnmarshaller<EasyMetadata>(EasyMetadataImpl.class).unmarshal(xml);
+        assertEquals(emd.toString("; "), emd2.toString("; "));
+        assertArrayEquals(xml, writer.write(emd2));
+    }
+
+    @Test
+    public void readableInStrictOrder() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        byte[] xml = writer.write(emd);
+        EasyMetadata emd2 = new EmdStaxUnmarshaller().strict().unmarshal(xml);
+        assertArrayEquals(xml, writer.write(emd2));
+
+        String string = new String(xml, "UTF-8");
+        assertTrue(string.indexOf("<emd:identifier>") < string.indexOf("<emd:source>"));
+        assertTrue(string.indexOf("<emd:language>") < string.indexOf("<emd:relation>"));
+    }
+
+    @Test
+    public void emptyContainersAndTermsAreOmitted() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        emd.getEmdTitle().getDcTitle().add(new BasicString("title"));
+
+        EasyMetadataImpl emd2 = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        emd2.getEmdTitle().getDcTitle().add(null);
+        emd2.getEmdTitle().getDcTitle().add(new BasicString("title"));
+        emd2.getEmdTitle().getDcTitle().add(new BasicString("  "));
+        emd2.getEmdCreator().getDcCreator();
+        emd2.getEmdRights();
+
+        assertEquals(writer.toXml(emd), writer.toXml(emd2));
+        assertFalse(writer.toXml(emd).contains("creator"));
+        assertTrue(writer.toXml(emd).contains("</eas:application-specific><eas:etc/></emd:other>"));
+    }
+
+    @Test
+    public void whiteSpaceIsNormalized() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        BasicString title = new BasicString("line 1\nline 2");
+        title.setScheme("a b");
+        emd.getEmdTitle().getDcTitle().add(title);
+
+        EasyMetadataImpl emd2 = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        BasicString title2 = new BasicString("  line 1\r\nline 2 ");
+        title2.setScheme(" a\n b ");
+        emd2.getEmdTitle().getDcTitle().add(title2);
+
+        assertEquals(writer.toXml(emd), writer.toXml(emd2));
+    }
+
+    @Test
+    public void datesAreNormalized() throws Exception {
+        DateTime dateTime = new DateTime(2014, 5, 1, 12, 0, 0, 0, DateTimeZone.UTC);
+
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        emd.getEmdDate().getEasCreated().add(new IsoDate(dateTime));
+
+        EasyMetadataImpl emd2 = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        emd2.getEmdDate().getEasCreated().add(new IsoDate(dateTime.withZone(DateTimeZone.forOffsetHours(5))));
+
+        assertArrayEquals(writer.digest(emd, "SHA-256"), writer.digest(emd2, "SHA-256"));
+        assertTrue(writer.toXml(emd).contains(">2014-05-01T12:00:00.000Z</eas:created>"));
+    }
+
+    @Test
+    public void basicDatesAreNormalized() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        emd.getEmdDate().getDcDate().add(new BasicDate("2014-05-01T12:00:00Z"));
+        emd.getEmdDate().getDcDate().add(new BasicDate("2014-05-01"));
+
+        EasyMetadataImpl emd2 = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        emd2.getEmdDate().getDcDate().add(new BasicDate("2014-05-01T17:00:00+05:00"));
+        emd2.getEmdDate().getDcDate().add(new BasicDate("2014-05-01"));
+
+        String xml = writer.toXml(emd);
+        assertEquals(xml, writer.toXml(emd2));
+        assertTrue(xml.contains(">2014-05-01T12:00:00.000Z</dc:date>"));
+        assertTrue(xml.contains(">2014-05-01</dc:date>"));
+    }
+
+    @Test
+    public void contentChangesDigest() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(1, emd);
+        byte[] digest = writer.digest(emd, "SHA-256");
+
+        emd.getEmdTitle().getDcTitle().add(new BasicString("another title"));
+        assertFalse(Arrays.equals(digest, writer.digest(emd, "SHA-256")));
+    }
+
+    @Test
+    public void escaping() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        BasicString title = new BasicString("a < b & c > d");
+        title.setScheme("\"x\"");
+        emd.getEmdTitle().getDcTitle().add(title);
+
+        String xml = writer.toXml(emd);
+        assertTrue(xml.contains("eas:scheme=\"&quot;x&quot;\">a &lt; b &amp; c &gt; d</dc:title>"));
+        assertEquals("a < b & c > d", new EmdStaxUnmarshaller().unmarshal(xml).getEmdTitle().getDcTitle().get(0).getValue());
+    }
+
+}
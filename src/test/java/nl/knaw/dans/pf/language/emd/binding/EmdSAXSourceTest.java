@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdHelper;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.validation.EMDValidator;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class EmdSAXSourceTest {
+
+    private static String transform(EasyMetadata emd) throws Exception {
+        StringWriter out = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(new EmdSAXSource(emd), new StreamResult(out));
+        return out.toString();
+    }
+
+    // Elements, attributes and text in document order; namespace declarations and whitespace between elements are left out.
+    private static List<String> events(String xml) throws Exception {
+        List<String> events = new ArrayList<String>();
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                TreeSet<String> attributes = new TreeSet<String>();
+                for (int i = 0; i < reader.getAttributeCount(); i++) {
+                    attributes.add(reader.getAttributeName(i) + "=" + reader.getAttributeValue(i));
+                }
+                events.add("<" + reader.getName() + " " + attributes);
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                events.add("</" + reader.getName());
+            } else if (event == XMLStreamConstants.CHARACTERS && !reader.isWhiteSpace()) {
+                events.add(reader.getText());
+            }
+        }
+        reader.close();
+        return events;
+    }
+
+    @Test
+    public void sameAsMarshaller() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        assertEquals(events(new EmdMarshaller(emd).getXmlString()), events(transform(emd)));
+    }
+
+    @Test
+    public void bindingOrder() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        // the strict reader rejects containers and terms out of binding order
+        new EmdStaxUnmarshaller().strict().unmarshal(transform(emd));
+        assertTrue(EMDValidator.instance().validate(new EmdSAXSource(emd)).passed());
+    }
+
+    @Test
+    public void sameContent() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+
+        EasyMetadata emd2 = new EmdStaxUnmarshaller().unmarshal(transform(emd));
+        assertEquals(emd.toString("; "), emd2.toString("; "));
+        EmdCanonicalWriter canonical = new EmdCanonicalWriter();
+        assertEquals(canonical.toXml(emd), canonical.toXml(emd2));
+    }
+
+    @Test
+    public void emptyItemsAndContainers() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        emd.getEmdTitle().getDcTitle().add(new BasicString());
+        emd.getEmdCreator();
+
+        String xml = transform(emd);
+        assertTrue(xml, xml.contains("<emd:title><dc:title/></emd:title><emd:creator/>"));
+        assertTrue(xml, xml.contains("<eas:etc/></emd:other>"));
+        assertEquals(1, new EmdStaxUnmarshaller().unmarshal(xml).getEmdTitle().getDcTitle().size());
+    }
+
+    @Test
+    public void reusable() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(1, emd);
+
+        EmdSAXSource source = new EmdSAXSource(emd);
+        StringWriter first = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(first));
+        StringWriter second = new StringWriter();
+        TransformerFactory.newInstance().newTransformer().transform(source, new StreamResult(second));
+        assertEquals(first.toString(), second.toString());
+    }
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.EnumSet;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdHelper;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+import nl.knaw.dans.pf.language.emd.types.Author;
+import nl.knaw.dans.pf.language.xml.exc.XMLDeserializationException;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class EmdStaxUnmarshallerTest {
+
+    private static final String ROOT = "<emd:easymetadata xmlns:emd=\"http://easy.dans.knaw.nl/easy/easymetadata/\""
+            + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:dcterms=\"http://purl.org/dc/terms/\">";
+
+    private final EmdStaxUnmarshaller unmarshaller = new EmdStaxUnmarshaller().strict();
+
+    @Test
+    public void readExample() throws Exception {
+        InputStream in = getClass().getResourceAsStream("/example1.xml");
+        EasyMetadata emd;
+        try {
+            emd = unmarshaller.unmarshal(in);
+        }
+        finally {
+            in.close();
+        }
+        assertEquals("version0", emd.getVersion());
+        assertEquals("title0", emd.getEmdTitle().getDcTitle().get(0).getValue());
+        assertEquals("en-US", emd.getEmdTitle().getDcTitle().get(0).getLanguage());
+        assertEquals("schemeId1", emd.getEmdTitle().getDcTitle().get(1).getSchemeId());
+        Author author = emd.getEmdCreator().getEasCreator().get(1);
+        assertEquals("surname1", author.getSurname());
+        assertEquals("entityId1", author.getEntityId());
+        assertNotNull(author.getIdentificationSystem());
+    }
+
+    @Test
+    public void readSelectedContainers() throws Exception {
+        EasyMetadata emd = read(EmdStaxUnmarshaller.forContainers(EnumSet.of(MDContainer.Identifier, MDContainer.Rights)));
+        assertEquals(2, countContainers(emd));
+        assertEquals(2, emd.getEmdIdentifier().getDcIdentifier().size());
+        assertEquals("rights0", emd.getEmdRights().getDcRights().get(0).getValue());
+        assertNull(emd.getContainer(MDContainer.Title, true));
+    }
+
+    @Test
+    public void readSelectedTerms() throws Exception {
+        EasyMetadata emd = read(EmdStaxUnmarshaller.forTerms(Collections.singleton(Term.of(Term.Name.CREATOR))));
+        assertEquals(1, countContainers(emd));
+        assertEquals(2, emd.getEmdCreator().getDcCreator().size());
+        assertEquals(2, emd.getEmdCreator().getEasCreator().size());
+
+        emd = read(EmdStaxUnmarshaller.forTerms(Collections.singleton(Term.of(Term.Name.REMARKS, Term.Namespace.EAS))));
+        assertEquals(2, emd.getEmdOther().getEasRemarks().size());
+        assertNull(emd.getEmdOther().getEasApplicationSpecific());
+        assertTrue(emd.getEmdOther().getPropertyListCollection().isEmpty());
+    }
+
+    private EasyMetadata read(EmdStaxUnmarshaller selective) throws Exception {
+        InputStream in = getClass().getResourceAsStream("/example1.xml");
+        try {
+            return selective.strict().unmarshal(in);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private static int countContainers(EasyMetadata emd) {
+        int count = 0;
+        for (MDContainer mdContainer : MDContainer.values()) {
+            if (emd.getContainer(mdContainer, true) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void readByteBuffer() throws Exception {
+        String xml = "<emd:easymetadata xmlns:emd=\"http://easy.dans.knaw.nl/easy/easymetadata/\""
+                + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\" emd:version=\"0.1\">"
+                + "<emd:title><dc:title>foo</dc:title></emd:title></emd:easymetadata>";
+        ByteBuffer buffer = ByteBuffer.wrap(xml.getBytes("UTF-8"));
+        EasyMetadata emd = unmarshaller.unmarshal(buffer);
+        assertEquals("foo", emd.getEmdTitle().getDcTitle().get(0).getValue());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test(expected = XMLDeserializationException.class)
+    public void unknownElement() throws Exception {
+        unmarshaller.unmarshal("<emd:easymetadata xmlns:emd=\"http://easy.dans.knaw.nl/easy/easymetadata/\"><emd:foo/></emd:easymetadata>");
+    }
+
+    @Test
+    public void strictAcceptsBindingOrder() throws Exception {
+        EasyMetadata emd = unmarshaller.unmarshal(ROOT + "<emd:identifier><dc:identifier>id</dc:identifier></emd:identifier>"
+                + "<emd:source><dc:source>src</dc:source></emd:source>" + "<emd:relation><dcterms:isPartOf>part</dcterms:isPartOf></emd:relation>"
+                + "</emd:easymetadata>");
+        assertEquals("src", emd.getEmdSource().getDcSource().get(0).getValue());
+        assertEquals(1, emd.getEmdRelation().getTermsIsPartOf().size());
+    }
+
+    @Test(expected = XMLDeserializationException.class)
+    public void strictRejectsContainerOutOfOrder() throws Exception {
+        unmarshaller.unmarshal(ROOT + "<emd:relation><dcterms:isPartOf>part</dcterms:isPartOf></emd:relation>"
+                + "<emd:source><dc:source>src</dc:source></emd:source></emd:easymetadata>");
+    }
+
+    @Test(expected = XMLDeserializationException.class)
+    public void strictRejectsRepeatedContainer() throws Exception {
+        unmarshaller.unmarshal(ROOT + "<emd:source><dc:source>a</dc:source></emd:source>"
+                + "<emd:source><dc:source>b</dc:source></emd:source></emd:easymetadata>");
+    }
+
+    @Test(expected = XMLDeserializationException.class)
+    public void strictRejectsTermOutOfOrder() throws Exception {
+        unmarshaller.unmarshal(ROOT + "<emd:title><dcterms:alternative>alt</dcterms:alternative><dc:title>title</dc:title></emd:title>"
+                + "</emd:easymetadata>");
+    }
+
+    @Test(expected = XMLDeserializationException.class)
+    public void strictRequiresEtc() throws Exception {
+        unmarshaller.unmarshal(ROOT + "<emd:other/></emd:easymetadata>");
+    }
+
+    @Test
+    public void lenientAcceptsAnyOrder() throws Exception {
+        EasyMetadata emd = new EmdStaxUnmarshaller().unmarshal(ROOT + "<emd:relation><dcterms:isPartOf>part</dcterms:isPartOf></emd:relation>"
+                + "<emd:source><dc:source>src</dc:source></emd:source><emd:other/></emd:easymetadata>");
+        assertEquals("src", emd.getEmdSource().getDcSource().get(0).getValue());
+        assertFalse(new EmdStaxUnmarshaller().isStrict());
+        assertTrue(unmarshaller.isStrict());
+    }
+
+    @Test
+    public void sameAsJiBX() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+        String xml = new EmdMarshaller(emd).getXmlString();
+
+        EasyMetadata jibx = new EmdUnmarshaller<EasyMetadata>(EasyMetadataImpl.class).unmarshal(xml);
+        EasyMetadata stax = unmarshaller.unmarshal(xml);
+
+        assertEquals(new EmdMarshaller(jibx).getXmlString(), new EmdMarshaller(stax).getXmlString());
+        assertEquals(jibx.toString("; "), stax.toString("; "));
+    }
+
+    @Test
+    public void sameAsJiBXEmpty() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        String xml = new EmdMarshaller(emd).getXmlString();
+
+        EasyMetadata jibx = new EmdUnmarshaller<EasyMetadata>(EasyMetadataImpl.class).unmarshal(xml);
+        EasyMetadata stax = unmarshaller.unmarshal(xml);
+
+        assertEquals(new EmdMarshaller(jibx).getXmlString(), new EmdMarshaller(stax).getXmlString());
+    }
+
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.binding;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdHelper;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class LazyEasyMetadataTest {
+
+    @Test
+    public void loadOnDemand() throws Exception {
+        byte[] xml = readExample();
+        LazyEasyMetadata lazy = new LazyEasyMetadata(xml);
+        assertEquals("version0", lazy.getVersion());
+        for (MDContainer mdContainer : MDContainer.values()) {
+            assertFalse(lazy.isLoaded(mdContainer));
+        }
+
+        assertEquals("identifier0", lazy.getEmdIdentifier().getDcIdentifier().get(0).getValue());
+        assertTrue(lazy.isLoaded(MDContainer.Identifier));
+        assertFalse(lazy.isLoaded(MDContainer.Title));
+        assertFalse(lazy.isLoaded(MDContainer.Relation));
+
+        assertEquals(2, lazy.getTerm(Term.of(Term.Name.RIGHTS, Term.Namespace.DC)).size());
+        assertTrue(lazy.isLoaded(MDContainer.Rights));
+        assertFalse(lazy.isLoaded(MDContainer.Title));
+    }
+
+    @Test
+    public void sameAsEager() throws Exception {
+        byte[] xml = readExample();
+        EasyMetadata eager = new EmdStaxUnmarshaller().unmarshal(xml);
+        LazyEasyMetadata lazy = new LazyEasyMetadata(xml);
+        assertEquals(eager.toString("; "), lazy.toString("; "));
+        assertEquals(eager.getEmdOther().getEasApplicationSpecific().getMetadataFormat(), lazy.getEmdOther().getEasApplicationSpecific()
+                .getMetadataFormat());
+    }
+
+    @Test
+    public void writeUntouched() throws Exception {
+        byte[] xml = readExample();
+        LazyEasyMetadata lazy = new LazyEasyMetadata(xml);
+        lazy.getTermsMap();
+        for (MDContainer mdContainer : MDContainer.values()) {
+            lazy.getContainer(mdContainer, false);
+            assertFalse(lazy.isModified(mdContainer));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lazy.writeTo(out);
+        assertArrayEquals(xml, out.toByteArray());
+    }
+
+    @Test
+    public void trackModifications() throws Exception {
+        LazyEasyMetadata lazy = new LazyEasyMetadata(readExample());
+        lazy.getEmdTitle().getDcTitle().get(0).setValue("changed");
+        assertTrue(lazy.isModified(MDContainer.Title));
+
+        lazy.getEmdRights().getDcRights().remove(1);
+        assertTrue(lazy.isModified(MDContainer.Rights));
+
+        lazy.getEmdRelation().getEasRelation().get(0).getSubjectTitle().setValue("changed");
+        assertTrue(lazy.isModified(MDContainer.Relation));
+
+        lazy.getEmdOther().getEasApplicationSpecific().setMetadataFormat(MetadataFormat.ARCHAEOLOGY);
+        assertTrue(lazy.isModified(MDContainer.Other));
+
+        assertFalse(lazy.isModified(MDContainer.Creator));
+        lazy.getEmdCreator().getEasCreator().get(0).getSurname();
+        assertFalse(lazy.isModified(MDContainer.Creator));
+    }
+
+    @Test
+    public void writeItemModifiedInPlace() throws Exception {
+        LazyEasyMetadata lazy = new LazyEasyMetadata(readExample());
+        lazy.getEmdTitle().getDcTitle().get(0).setValue("changed");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lazy.writeTo(out);
+
+        EasyMetadata written = new EmdUnmarshaller<EasyMetadata>(EasyMetadataImpl.class).unmarshal(out.toByteArray());
+        assertEquals("changed", written.getEmdTitle().getDcTitle().get(0).getValue());
+        assertEquals(lazy.toString("; "), written.toString("; "));
+    }
+
+    @Test
+    public void keepDocumentOrder() throws Exception {
+        String xml = "<emd:easymetadata xmlns:emd=\"http://easy.dans.knaw.nl/easy/easymetadata/\""
+                + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:dcterms=\"http://purl.org/dc/terms/\" emd:version=\"0.1\">"
+                + "<emd:relation><dcterms:isPartOf>part</dcterms:isPartOf></emd:relation>"
+                + "<emd:source><dc:source>src</dc:source></emd:source></emd:easymetadata>";
+        LazyEasyMetadata lazy = new LazyEasyMetadata(xml.getBytes("UTF-8"));
+        lazy.getEmdSource().getDcSource().get(0).setValue("changed");
+        lazy.getEmdTitle().getDcTitle().add(new BasicString("title"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lazy.writeTo(out);
+
+        String written = out.toString("UTF-8");
+        assertTrue(written.indexOf("emd:title") < written.indexOf("emd:relation"));
+        assertTrue(written.indexOf("emd:relation") < written.indexOf("emd:source"));
+        assertTrue(written.indexOf("changed") > written.indexOf("emd:source"));
+    }
+
+    @Test
+    public void writeModified() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(2, emd);
+        byte[] xml = EmdBindingEngine.instance().marshal(emd);
+
+        LazyEasyMetadata lazy = new LazyEasyMetadata(xml);
+        lazy.getEmdTitle().getDcTitle().clear();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        lazy.writeTo(out);
+
+        emd.getEmdTitle().getDcTitle().clear();
+        EasyMetadata written = new EmdUnmarshaller<EasyMetadata>(EasyMetadataImpl.class).unmarshal(out.toByteArray());
+        assertEquals(emd.toString("; "), written.toString("; "));
+        assertEquals(new EmdMarshaller(emd).getXmlString(), new EmdMarshaller(written).getXmlString());
+    }
+
+    private byte[] readExample() throws Exception {
+        InputStream in = getClass().getResourceAsStream("/example1.xml");
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+        finally {
+            in.close();
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class ByteBufferOutputStreamTest {
+
+    @Test
+    public void writeWithinCapacity() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        ByteBufferOutputStream out = new ByteBufferOutputStream(buffer);
+        out.write(new byte[] {1, 2, 3});
+        out.write(4);
+        assertSame(buffer, out.getBuffer());
+        assertEquals(4, buffer.position());
+    }
+
+    @Test
+    public void grow() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2);
+        ByteBufferOutputStream out = new ByteBufferOutputStream(buffer);
+        byte[] bytes = new byte[100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        out.write(bytes[0]);
+        out.write(bytes, 1, bytes.length - 1);
+
+        ByteBuffer result = out.getBuffer();
+        assertNotSame(buffer, result);
+        assertTrue(result.isDirect());
+        result.flip();
+        assertArrayEquals(bytes, readAll(new ByteBufferInputStream(result)));
+        assertEquals(0, result.remaining());
+    }
+
+    private static byte[] readAll(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[7];
+        int read;
+        while ((read = in.read(chunk, 0, chunk.length)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.knaw.dans.pf.language.emd.binding.EmdBatch;
+import nl.knaw.dans.pf.language.emd.validation.BatchValidationReport.Offender;
+import nl.knaw.dans.pf.language.xml.validation.XMLErrorHandler;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class EMDValidatorBatchTest {
+
+    private static final String ROOT = "<root xmlns=\"http://example.org/main\" xmlns:imp=\"http://example.org/imported\">";
+
+    @Test
+    public void validateDocuments() throws Exception {
+        Map<String, byte[]> documents = new LinkedHashMap<String, byte[]>();
+        for (int i = 0; i < 50; i++) {
+            documents.put("valid-" + i, (ROOT + "<imp:value>" + i + "</imp:value></root>").getBytes("UTF-8"));
+        }
+        documents.put("one-error", (ROOT + "<imp:value>a</imp:value></root>").getBytes("UTF-8"));
+        documents.put("two-errors", (ROOT + "<imp:value>a</imp:value><imp:value>b</imp:value></root>").getBytes("UTF-8"));
+        documents.put("malformed", (ROOT + "<imp:value>").getBytes("UTF-8"));
+
+        final List<String> names = new ArrayList<String>();
+        EMDValidator validator = EMDValidator.instance();
+        validator.setSchemaLocation(getClass().getResource("/schema-catalog/main.xsd").toString());
+        BatchValidationReport report;
+        try {
+            report = validator.validateDocuments(new EmdBatch(4, 8), documents.entrySet().iterator(), new EmdBatch.Callback<XMLErrorHandler>() {
+
+                public void onResult(int index, String name, XMLErrorHandler result) {
+                    names.add(name);
+                }
+
+                public void onError(int index, String name, Exception error) {
+                    names.add(name);
+                }
+            });
+        }
+        finally {
+            validator.setSchemaLocation(null);
+        }
+
+        assertEquals(new ArrayList<String>(documents.keySet()), names);
+        assertFalse(report.passed());
+        assertEquals(53, report.getRecordCount());
+        assertEquals(50, report.getValidCount());
+        assertEquals(2, report.getInvalidCount());
+        // a validator throws on a fatal error
+        assertEquals(1, report.getFailedCount());
+        assertEquals(Integer.valueOf(1), report.getErrorTypeCounts().get("org.xml.sax.SAXParseException"));
+
+        List<Offender> offenders = report.getWorstOffenders();
+        assertEquals(2, offenders.size());
+        assertEquals("two-errors", offenders.get(0).getName());
+        assertEquals("one-error", offenders.get(1).getName());
+        assertTrue(offenders.get(0).getErrorCount() > offenders.get(1).getErrorCount());
+    }
+
+    @Test
+    public void errorType() {
+        assertEquals("cvc-datatype-valid.1.2.1", BatchValidationReport.errorType("cvc-datatype-valid.1.2.1: 'a' is not a valid value for 'integer'."));
+        assertEquals("Premature end of file.", BatchValidationReport.errorType("Premature end of file."));
+        assertEquals("", BatchValidationReport.errorType(null));
+    }
+
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import nl.knaw.dans.common.lang.dataset.AccessCategory;
+import nl.knaw.dans.pf.language.emd.EasyMetadata;
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.EmdHelper;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.Term;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+import nl.knaw.dans.pf.language.emd.types.Author;
+import nl.knaw.dans.pf.language.emd.types.BasicDate;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.emd.types.EmdConstants;
+import nl.knaw.dans.pf.language.emd.types.LanguageTokenizedString;
+import nl.knaw.dans.pf.language.emd.types.SimpleElementImpl;
+import nl.knaw.dans.pf.language.emd.types.Spatial;
+import nl.knaw.dans.pf.language.emd.validation.EmdRuleReport.Rule;
+import nl.knaw.dans.pf.language.emd.validation.EmdRuleReport.Violation;
+
+import org.junit.Test;
+
+// ecco: CHECKSTYLE: OFF
+
+public class EmdRuleValidatorTest {
+
+    @Test
+    public void populatedPasses() throws Exception {
+        EasyMetadata emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        EmdHelper.populate(3, emd);
+        EmdRuleReport report = EmdRuleValidator.instance().validate(emd);
+        assertTrue(report.toString(), report.passed());
+    }
+
+    @Test
+    public void emptyPassesWithoutInstantiating() {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        assertTrue(EmdRuleValidator.instance().validate(emd).passed());
+        assertNull(emd.getContainer(MDContainer.Rights, true));
+    }
+
+    @Test
+    public void violations() throws Exception {
+        EasyMetadata emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+
+        BasicString title = new BasicString("title");
+        setField(LanguageTokenizedString.class, title, "language", "not a token");
+        emd.getEmdTitle().getDcTitle().add(title);
+
+        BasicDate date = new BasicDate("2014-01-01");
+        setField(SimpleElementImpl.class, date, "value", "yesterday");
+        assertEquals(EmdConstants.DateScheme.W3CDTF, date.getScheme());
+        emd.getEmdDate().getTermsCreated().add(new BasicDate("2014-02-02"));
+        emd.getEmdDate().getTermsCreated().add(date);
+
+        emd.getEmdCreator().getEasCreator().add(new Author());
+
+        Spatial both = new Spatial();
+        both.setPoint(new Spatial.Point("RD", "1", "2"));
+        setField(Spatial.class, both, "box", new Spatial.Box("RD", "1", "2", "3", "4"));
+        Spatial incomplete = new Spatial();
+        incomplete.setPoint(new Spatial.Point("RD", null, "2"));
+        emd.getEmdCoverage().getEasSpatial().add(both);
+        emd.getEmdCoverage().getEasSpatial().add(incomplete);
+
+        emd.getEmdRights().setAccessCategory(AccessCategory.OPEN_ACCESS);
+        emd.getEmdRights().getTermsAccessRights().add(new BasicString("NOT_A_CATEGORY"));
+        BasicString other = new BasicString("free text");
+        other.setSchemeId("some.other.scheme");
+        emd.getEmdRights().getTermsAccessRights().add(other);
+
+        EmdRuleReport report = EmdRuleValidator.instance().validate(emd);
+        assertFalse(report.passed());
+        assertEquals(report.toString(), 6, report.getViolations().size());
+        for (Rule rule : Rule.values()) {
+            assertEquals(rule.toString(), Integer.valueOf(1), report.getCounts().get(rule));
+        }
+
+        List<Violation> dates = report.getViolations(Rule.W3CDTF_DATE);
+        assertEquals(MDContainer.Date, dates.get(0).getMdContainer());
+        assertEquals(Term.Name.CREATED, dates.get(0).getTerm().getName());
+        assertEquals(1, dates.get(0).getIndex());
+        assertEquals(1, report.getViolations(Rule.SPATIAL_COMPLETE).get(0).getIndex());
+        assertEquals(1, report.getViolations(Rule.ACCESS_CATEGORY).get(0).getIndex());
+
+        EmdRuleReport rights = EmdRuleValidator.instance().validate(MDContainer.Rights, emd.getEmdRights());
+        assertEquals(1, rights.getViolations().size());
+        assertEquals(MDContainer.Rights, rights.getViolations().get(0).getMdContainer());
+    }
+
+    private static void setField(Class<?> clazz, Object target, String name, Object value) throws Exception {
+        Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+}
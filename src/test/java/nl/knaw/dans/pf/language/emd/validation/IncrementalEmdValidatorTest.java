@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import nl.knaw.dans.pf.language.emd.EasyMetadataImpl;
+import nl.knaw.dans.pf.language.emd.MDContainer;
+import nl.knaw.dans.pf.language.emd.types.ApplicationSpecific.MetadataFormat;
+import nl.knaw.dans.pf.language.emd.types.BasicIdentifier;
+import nl.knaw.dans.pf.language.emd.types.BasicString;
+import nl.knaw.dans.pf.language.xml.validation.XMLErrorHandler;
+
+import org.junit.Test;
+import org.xml.sax.SAXParseException;
+
+// ecco: CHECKSTYLE: OFF
+
+public class IncrementalEmdValidatorTest {
+
+    // Accepted by LanguageTokenizedString, but not an xs:language: subtags have at most 8 letters.
+    private static final String INVALID_LANGUAGE = "i-notalanguagetag";
+
+    @Test
+    public void revalidateChangedContainers() throws Exception {
+        EasyMetadataImpl emd = new EasyMetadataImpl(MetadataFormat.DEFAULT);
+        for (int i = 0; i < 3; i++) {
+            emd.getEmdTitle().getDcTitle().add(new BasicString("title " + i));
+        }
+        for (int i = 0; i < 500; i++) {
+            emd.getEmdRelation().getDcRelation().add(new BasicIdentifier("relation " + i));
+        }
+        emd.getEmdCreator().getDcCreator().add(new BasicString("creator"));
+        BasicString language = new BasicString("language");
+        emd.getEmdLanguage().getDcLanguage().add(language);
+        language.setLanguage(INVALID_LANGUAGE);
+        emd.getEmdRelation().getDcRelation().get(10).setLanguage(INVALID_LANGUAGE);
+
+        EMDValidator validator = EMDValidator.instance();
+        IncrementalEmdValidator incremental = new IncrementalEmdValidator(validator, emd);
+
+        XMLErrorHandler handler = incremental.validate();
+        assertFalse(handler.passed());
+        assertEquals(messages(validator.validate(emd)), messages(handler));
+        // emd:language comes before emd:relation, in binding order
+        int languageError = indexOf(messages(handler), "dc:language");
+        assertTrue(languageError >= 0);
+        assertTrue(languageError < indexOf(messages(handler), "dc:relation"));
+        assertEquals(EnumSet.of(MDContainer.Title, MDContainer.Creator, MDContainer.Language, MDContainer.Relation, MDContainer.Other),
+                incremental.getRevalidated());
+
+        handler = incremental.validate();
+        assertEquals(messages(validator.validate(emd)), messages(handler));
+        assertTrue(incremental.getRevalidated().isEmpty());
+
+        language.setLanguage("nld");
+        handler = incremental.validate();
+        assertFalse(handler.passed());
+        assertEquals(-1, indexOf(messages(handler), "dc:language"));
+        assertEquals(messages(validator.validate(emd)), messages(handler));
+        assertEquals(EnumSet.of(MDContainer.Language), incremental.getRevalidated());
+
+        emd.getEmdTitle().getDcTitle().remove(0);
+        incremental.validate();
+        assertEquals(EnumSet.of(MDContainer.Title), incremental.getRevalidated());
+
+        emd.getEmdTitle().getDcTitle().get(0).setValue("changed");
+        incremental.validate();
+        assertEquals(EnumSet.of(MDContainer.Title), incremental.getRevalidated());
+
+        emd.setVersion("0.2");
+        handler = incremental.validate();
+        assertEquals(messages(validator.validate(emd)), messages(handler));
+        // the root element is part of every container's events
+        assertEquals(5, incremental.getRevalidated().size());
+
+        emd.getEmdRelation().getDcRelation().subList(3, 500).clear();
+        handler = incremental.validate();
+        assertEquals(EnumSet.of(MDContainer.Relation), incremental.getRevalidated());
+        assertEquals(-1, indexOf(messages(handler), "dc:relation"));
+        assertEquals(messages(validator.validate(emd)), messages(handler));
+    }
+
+    private static int indexOf(List<String> messages, String part) {
+        int index = -1;
+        for (int i = 0; index < 0 && i < messages.size(); i++) {
+            if (messages.get(i).contains(part)) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private static List<String> messages(XMLErrorHandler handler) {
+        List<String> messages = new ArrayList<String>();
+        for (SAXParseException e : handler.getErrors()) {
+            messages.add(e.getMessage());
+        }
+        return messages;
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2014 DANS - Data Archiving and Networked Services (info@dans.knaw.nl)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.knaw.dans.pf.language.emd.validation;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import nl.knaw.dans.pf.language.xml.validation.XMLErrorHandler;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+// ecco: CHECKSTYLE: OFF
+
+public class SchemaCatalogTest {
+
+    private static final String MAIN = "http://example.org/schemas/main.xsd";
+
+    private static final String VALID = "<root xmlns=\"http://example.org/main\" xmlns:imp=\"http://example.org/imported\"><imp:value>1</imp:value></root>";
+
+    private static final String INVALID = "<root xmlns=\"http://example.org/main\" xmlns:imp=\"http://example.org/imported\"><imp:value>a</imp:value></root>";
+
+    private final SchemaCatalog catalog = new SchemaCatalog("/schema-catalog/catalog.properties");
+
+    @Test
+    public void contains() {
+        assertTrue(catalog.contains(MAIN));
+        assertTrue(catalog.contains("http://example.org/schemas/imported/imported.xsd"));
+        assertFalse(catalog.contains("http://example.org/schemas/missing.xsd"));
+        assertFalse(new SchemaCatalog("/no/such/catalog.properties").contains(MAIN));
+    }
+
+    @Test
+    public void compileWithoutNetwork() throws Exception {
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        factory.setResourceResolver(catalog);
+        StreamSource source = catalog.getSource(MAIN);
+        Schema schema = factory.newSchema(source);
+        source.getInputStream().close();
+
+        Validator validator = schema.newValidator();
+        validator.validate(new StreamSource(new StringReader(VALID)));
+        try {
+            validator.validate(new StreamSource(new StringReader(INVALID)));
+            assertTrue("expected SAXException", false);
+        } catch (SAXException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void validatorSharesSchema() throws Exception {
+        EMDValidator validator = EMDValidator.instance();
+        String location = validator.getSchemaLocation();
+        try {
+            validator.setSchemaLocation(SchemaCatalogTest.class.getResource("/schema-catalog/main.xsd").toString());
+            Schema schema = validator.getSchema(null);
+            assertSame(schema, validator.getSchema(null));
+
+            assertTrue(validator.validate(new StreamSource(new StringReader(VALID))).passed());
+            XMLErrorHandler handler = validator.validate(new StreamSource(new StringReader(INVALID)));
+            assertFalse(handler.passed());
+            assertFalse(handler.getErrors().isEmpty());
+            assertTrue(validator.validate(new StreamSource(new StringReader(VALID))).passed());
+        } finally {
+            validator.setSchemaLocation(location);
+        }
+    }
+
+}